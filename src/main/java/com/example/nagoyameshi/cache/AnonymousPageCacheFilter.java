@@ -0,0 +1,210 @@
+package com.example.nagoyameshi.cache;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.example.nagoyameshi.cache.RenderedPageCache.RenderedPage;
+import com.example.nagoyameshi.search.WeeklySchedule;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+// 未ログインの /restaurants と /restaurants/{id} を、描画済みのHTMLから返すフィルター
+// キーはURLとクエリ文字列で、保存時の版数（PageValidatorsのETag）が今と違えば作り直す
+// 作り直しは最初の1リクエストだけが行い、その間ほかのリクエストには古いページを返す（古いページがなければ描画を待つ）
+@Component
+public class AnonymousPageCacheFilter extends OncePerRequestFilter {
+    private static final Pattern DETAIL = Pattern.compile("^/restaurants/(\\d+)$");
+    private static final String LISTING = "/restaurants";
+    // 同じページを描画中のリクエストを待つ上限
+    private static final long WAIT_MILLIS = 5000;
+
+    private final RenderedPageCache renderedPageCache;
+    private final PageValidators pageValidators;
+    // 描画中のキー（同じページを同時に描画しないため）
+    private final Map<String, CompletableFuture<RenderedPage>> rendering = new ConcurrentHashMap<>();
+
+    public AnonymousPageCacheFilter(RenderedPageCache renderedPageCache, PageValidators pageValidators) {
+        this.renderedPageCache = renderedPageCache;
+        this.pageValidators = pageValidators;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !"GET".equals(request.getMethod()) || !(LISTING.equals(path) || DETAIL.matcher(path).matches());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String key = request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        String version = versionOf(request);
+
+        RenderedPage cached = renderedPageCache.get(key);
+        if (cached != null && renderedPageCache.isFresh(cached, version)) {
+            serve(cached, request, response);
+            return;
+        }
+
+        CompletableFuture<RenderedPage> future = new CompletableFuture<>();
+        CompletableFuture<RenderedPage> inFlight = rendering.putIfAbsent(key, future);
+        if (inFlight != null) {
+            RenderedPage page = cached != null ? cached : await(inFlight);
+            if (page != null) {
+                serve(page, request, response);
+            } else {
+                chain.doFilter(request, response);
+            }
+            return;
+        }
+
+        RenderedPage page = null;
+        try {
+            page = render(key, version, request, response, chain);
+        } finally {
+            rendering.remove(key);
+            future.complete(page);
+        }
+    }
+
+    // 条件付きGETの見出しを外して必ず本文を描画させ、200であれば保存してから返す
+    private RenderedPage render(String key, String version, HttpServletRequest request,
+            HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(new UnconditionalRequest(request), wrapper);
+
+        String contentType = wrapper.getContentType();
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || contentType == null
+                || !contentType.startsWith("text/html")) {
+            // 削除された店舗などの古いページを返し続けないよう捨てる
+            renderedPageCache.invalidate(key);
+            wrapper.copyBodyToResponse();
+            return null;
+        }
+        RenderedPage page = renderedPageCache.put(key, version, contentType, wrapper.getHeader(HttpHeaders.ETAG),
+                lastModifiedOf(wrapper), wrapper.getContentAsByteArray());
+        wrapper.resetBuffer();
+        serve(page, request, response);
+        return page;
+    }
+
+    private void serve(RenderedPage page, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (page.getEtag() != null
+                && new ServletWebRequest(request, response).checkNotModified(page.getEtag(), page.getLastModified())) {
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(page.getContentType());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        byte[] body;
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = page.getGzipBytes();
+        } else {
+            body = page.getBytes();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // 版数：詳細は店舗ごと、一覧は全体のETag（営業時間の条件がある場合は今の15分枠も含める）
+    private String versionOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Matcher matcher = DETAIL.matcher(path);
+        if (matcher.matches()) {
+            try {
+                return pageValidators.restaurantEtag(Integer.valueOf(matcher.group(1)));
+            } catch (NumberFormatException e) {
+                return "";
+            }
+        }
+        boolean timeDependent = request.getParameter("openNow") != null || request.getParameter("openTime") != null;
+        return pageValidators.listingEtag(timeDependent ? WeeklySchedule.slotOf(LocalDateTime.now()) : null);
+    }
+
+    private static long lastModifiedOf(HttpServletResponse response) {
+        String value = response.getHeader(HttpHeaders.LAST_MODIFIED);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static RenderedPage await(CompletableFuture<RenderedPage> inFlight) {
+        try {
+            return inFlight.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    // If-None-Match・If-Modified-Sinceを見せないリクエスト（コントローラーが304を返さないようにする）
+    private static class UnconditionalRequest extends HttpServletRequestWrapper {
+        private UnconditionalRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isConditional(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isConditional(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public long getDateHeader(String name) {
+            return isConditional(name) ? -1 : super.getDateHeader(name);
+        }
+
+        private static boolean isConditional(String name) {
+            return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name)
+                    || HttpHeaders.IF_MODIFIED_SINCE.equalsIgnoreCase(name);
+        }
+    }
+}
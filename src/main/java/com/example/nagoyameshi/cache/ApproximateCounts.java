@@ -0,0 +1,103 @@
+package com.example.nagoyameshi.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// 一覧に添える「約N件」の件数（COUNT(*)は別スレッドで数え、画面の表示を待たせない）
+// まだ数えていない場合はnullを返し、古くなった値はそのまま返しつつ裏で数え直す
+@Component
+public class ApproximateCounts {
+    private static final Logger log = LoggerFactory.getLogger(ApproximateCounts.class);
+
+    private final Cache<String, Count> cache;
+    private final Duration ttl;
+    private final BackgroundTasks backgroundTasks;
+    // 数え直し中のキー（同じキーを同時に数えないため）と、数えている間に古くなったかどうか
+    private final Map<String, AtomicBoolean> refreshing = new ConcurrentHashMap<>();
+
+    public ApproximateCounts(BackgroundTasks backgroundTasks,
+            @Value("${nagoyameshi.cache.count.ttl-seconds:60}") long ttlSeconds,
+            @Value("${nagoyameshi.cache.count.max-size:100000}") long maxSize) {
+        this.backgroundTasks = backgroundTasks;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+    }
+
+    public Long get(String key, LongSupplier counter) {
+        Count count = cache.getIfPresent(key);
+        if (count == null || count.countedAt + ttl.toMillis() < System.currentTimeMillis()) {
+            refresh(key, counter);
+        }
+        return count != null ? count.value : null;
+    }
+
+    // 登録・削除の後に呼び、次の表示で数え直す（値は数え直すまで残す）
+    // コミット前に数え直すと変更前の件数を新しい値として保存してしまうため、コミット後に古くする
+    public void markStale(String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    expire(key);
+                }
+            });
+        } else {
+            expire(key);
+        }
+    }
+
+    // 数え直し中であれば、その結果も古い値として保存させる
+    private void expire(String key) {
+        AtomicBoolean inFlight = refreshing.get(key);
+        if (inFlight != null) {
+            inFlight.set(true);
+        }
+        cache.asMap().computeIfPresent(key, (k, count) -> new Count(count.value, 0));
+    }
+
+    private void refresh(String key, LongSupplier counter) {
+        AtomicBoolean stale = new AtomicBoolean();
+        if (refreshing.putIfAbsent(key, stale) != null) {
+            return;
+        }
+        boolean submitted = backgroundTasks.execute(() -> {
+            try {
+                long value = counter.getAsLong();
+                cache.asMap().compute(key, (k, count) -> new Count(value, stale.get() ? 0 : System.currentTimeMillis()));
+            } catch (RuntimeException e) {
+                log.warn("Could not count {}", key, e);
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+        if (!submitted) {
+            refreshing.remove(key);
+        }
+    }
+
+    private static class Count {
+        private final long value;
+        private final long countedAt;
+
+        private Count(long value, long countedAt) {
+            this.value = value;
+            this.countedAt = countedAt;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.nagoyameshi.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+// 件数の数え直し・トップページの作り直しなど、DBを読む裏方の処理を流すスレッドプール
+// 共通のForkJoinPoolはCPU処理向けで並列ストリームとも共有するため、JDBCで待つ処理は専用のプールで動かす
+// （Spring MVCの非同期処理の実行先を置き換えないよう、Executorとしてはビーン登録しない）
+@Component
+public class BackgroundTasks {
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    public BackgroundTasks(@Value("${nagoyameshi.background.pool-size:2}") int poolSize,
+            @Value("${nagoyameshi.background.queue-capacity:100}") int queueCapacity) {
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("background-");
+        executor.initialize();
+    }
+
+    // キューがあふれた場合はfalseを返す（呼び出し側は次の機会に任せる）
+    public boolean execute(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (TaskRejectedException e) {
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.nagoyameshi.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// 店舗・カテゴリ・定休日が変更されるたびに増える版数（キャッシュのキーに含めて古い結果を使わないようにする）
+@Component
+public class CatalogVersion {
+    private final AtomicLong version = new AtomicLong();
+    // 最後に版数が増えた時刻（一覧ページのLast-Modifiedに使う）
+    private volatile long lastModified = System.currentTimeMillis();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long lastModified() {
+        return lastModified;
+    }
+
+    // トランザクション中はコミット後に増やす（コミット前に増やすと、新しい版数で古いデータがキャッシュされうるため）
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment();
+                }
+            });
+        } else {
+            increment();
+        }
+    }
+
+    private void increment() {
+        version.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.nagoyameshi.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.nagoyameshi.entity.Restaurant;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Hibernateの2次キャッシュ・クエリキャッシュの破棄と統計
+// エンティティをJPAで更新した場合はHibernateが自動で入れ替えるため、ここで破棄するのは
+// 中間テーブルだけを書き換えた場合（店舗側のコレクションは更新されない）とJDBCで直接書き込んだ場合
+@Component
+public class EntityCaches {
+    private static final String RESTAURANT_CATEGORIES = Restaurant.class.getName() + ".categories";
+    private static final String RESTAURANT_HOLIDAYS = Restaurant.class.getName() + ".holidays";
+
+    private final SessionFactory sessionFactory;
+
+    public EntityCaches(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    // 店舗のカテゴリ・定休日の中間テーブルを書き換えた後に呼ぶ
+    public void evictRestaurantAfterCommit(Integer restaurantId) {
+        afterCommit(() -> {
+            Cache cache = sessionFactory.getCache();
+            cache.evictEntityData(Restaurant.class, restaurantId);
+            cache.evictCollectionData(RESTAURANT_CATEGORIES, restaurantId);
+            cache.evictCollectionData(RESTAURANT_HOLIDAYS, restaurantId);
+        });
+    }
+
+    // 一括登録・移行ジョブなど、多数の店舗をまとめて書き換えた後に呼ぶ
+    public void evictRestaurantsAfterCommit() {
+        afterCommit(() -> {
+            Cache cache = sessionFactory.getCache();
+            cache.evictEntityData(Restaurant.class);
+            cache.evictCollectionData(RESTAURANT_CATEGORIES);
+            cache.evictCollectionData(RESTAURANT_HOLIDAYS);
+            cache.evictQueryRegions();
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", statistics.isStatisticsEnabled());
+        stats.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        stats.put("secondLevelCacheHitCount", statistics.getSecondLevelCacheHitCount());
+        stats.put("secondLevelCacheMissCount", statistics.getSecondLevelCacheMissCount());
+        stats.put("secondLevelCachePutCount", statistics.getSecondLevelCachePutCount());
+        stats.put("queryCacheHitCount", statistics.getQueryCacheHitCount());
+        stats.put("queryCacheMissCount", statistics.getQueryCacheMissCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                regions.put(name, Map.of(
+                        "hitCount", region.getHitCount(),
+                        "missCount", region.getMissCount(),
+                        "putCount", region.getPutCount(),
+                        "elementCountInMemory", region.getElementCountInMemory()));
+            }
+        }
+        stats.put("regions", regions);
+        return stats;
+    }
+
+    // コミット前に破棄すると、並行する読み込みが古い行を入れ直すことがあるためコミット後に破棄する
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
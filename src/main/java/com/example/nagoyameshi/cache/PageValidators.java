@@ -0,0 +1,102 @@
+package com.example.nagoyameshi.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.example.nagoyameshi.event.RestaurantCatalogReloadEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.search.RestaurantStatsIndex;
+import com.example.nagoyameshi.service.TaxonomyService;
+
+// 未ログインで表示する店舗詳細・店舗一覧の条件付きGET（ETag・Last-Modified）
+// 値はメモリ上の版数と更新時刻だけから作り、一致すればDBにもテンプレートにも触れずに304を返す
+// 版数は起動のたびに0から数え直すため、ETagには起動時刻を含め、Last-Modifiedも起動時刻より前にしない
+@Component
+public class PageValidators {
+    private final long startedAt = System.currentTimeMillis();
+
+    private final CatalogVersion catalogVersion;
+    private final RestaurantStatsIndex restaurantStatsIndex;
+    private final TaxonomyService taxonomyService;
+
+    // 店舗ごとの最終更新時刻（restaurants.updated_atに相当し、同じ店舗では必ず増える）
+    private final Map<Integer, Long> restaurantChangedAt = new ConcurrentHashMap<>();
+    // 一括登録などで店舗をまとめて読み直した時刻
+    private volatile long reloadedAt = startedAt;
+
+    public PageValidators(CatalogVersion catalogVersion, RestaurantStatsIndex restaurantStatsIndex,
+            TaxonomyService taxonomyService) {
+        this.catalogVersion = catalogVersion;
+        this.restaurantStatsIndex = restaurantStatsIndex;
+        this.taxonomyService = taxonomyService;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChange(RestaurantChangeEvent event) {
+        restaurantChangedAt.merge(event.getRestaurantId(), System.currentTimeMillis(),
+                (previous, current) -> Math.max(previous + 1, current));
+    }
+
+    @EventListener(RestaurantCatalogReloadEvent.class)
+    public void onCatalogReload(RestaurantCatalogReloadEvent event) {
+        reloadedAt = System.currentTimeMillis();
+    }
+
+    // 店舗詳細：店舗の更新時刻・レビュー集計の更新時刻・カテゴリ等の版数から作る
+    public boolean checkRestaurant(ServletWebRequest request, Integer restaurantId) {
+        return check(request, restaurantEtag(restaurantId), restaurantLastModified(restaurantId));
+    }
+
+    // 店舗一覧：店舗・カテゴリ等の版数と集計の版数から作る（営業中の絞り込みでは時間枠もETagに含める）
+    public boolean checkListing(ServletWebRequest request, Integer openSlot) {
+        return check(request, listingEtag(openSlot), listingLastModified());
+    }
+
+    public String restaurantEtag(Integer restaurantId) {
+        return "\"r" + restaurantId + "-" + startedAt + "-" + restaurantChangedAt(restaurantId) + "-"
+                + restaurantStatsIndex.changedAt(restaurantId) + "-" + taxonomyService.get().getVersion() + "\"";
+    }
+
+    public String listingEtag(Integer openSlot) {
+        return "\"l-" + startedAt + "-" + catalogVersion.current() + "-" + restaurantStatsIndex.version()
+                + (openSlot != null ? "-" + openSlot : "") + "\"";
+    }
+
+    private long restaurantLastModified(Integer restaurantId) {
+        return max(restaurantChangedAt(restaurantId), restaurantStatsIndex.changedAt(restaurantId),
+                taxonomyService.get().getLoadedAt());
+    }
+
+    private long listingLastModified() {
+        return max(catalogVersion.lastModified(), restaurantStatsIndex.lastModified());
+    }
+
+    private long restaurantChangedAt(Integer restaurantId) {
+        return Math.max(restaurantChangedAt.getOrDefault(restaurantId, 0L), reloadedAt);
+    }
+
+    // 一致すれば304を返してtrue、そうでなければ検証用のヘッダーを付けてfalseを返す
+    // no-cacheにして、ブラウザが毎回ETagで確認するようにする
+    private boolean check(ServletWebRequest request, String etag, long lastModified) {
+        if (request.checkNotModified(etag, Math.max(lastModified, startedAt))) {
+            return true;
+        }
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        return false;
+    }
+
+    private static long max(long first, long... rest) {
+        long max = first;
+        for (long value : rest) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+}
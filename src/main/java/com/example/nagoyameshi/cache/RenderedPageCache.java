@@ -0,0 +1,134 @@
+package com.example.nagoyameshi.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+// 未ログインで表示した店舗詳細・店舗一覧のHTMLのキャッシュ（gzip圧縮したバイト列で持ち、合計バイト数で上限を決める）
+// off-heap=trueの場合はダイレクトバッファに置き、ヒープを小さく保つ
+@Component
+public class RenderedPageCache {
+    private final Cache<String, RenderedPage> cache;
+    private final Duration ttl;
+    private final boolean offHeap;
+
+    public RenderedPageCache(@Value("${nagoyameshi.cache.page.max-bytes:67108864}") long maxBytes,
+            @Value("${nagoyameshi.cache.page.ttl-seconds:300}") long ttlSeconds,
+            @Value("${nagoyameshi.cache.page.off-heap:false}") boolean offHeap) {
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.offHeap = offHeap;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, RenderedPage page) -> page.body.capacity() + key.length())
+                .recordStats()
+                .build();
+    }
+
+    public RenderedPage get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public RenderedPage put(String key, String version, String contentType, String etag, long lastModified,
+            byte[] html) {
+        byte[] gzip = compress(html);
+        ByteBuffer body = offHeap ? ByteBuffer.allocateDirect(gzip.length) : ByteBuffer.allocate(gzip.length);
+        body.put(gzip).flip();
+
+        RenderedPage page = new RenderedPage(version, System.currentTimeMillis(), contentType, etag, lastModified,
+                body.asReadOnlyBuffer());
+        cache.put(key, page);
+        return page;
+    }
+
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    // 版数が変わったか、保存してからttlを過ぎたページは作り直す（作り直す間は古いページを返してよい）
+    public boolean isFresh(RenderedPage page, String version) {
+        return page.version.equals(version) && page.renderedAt + ttl.toMillis() > System.currentTimeMillis();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        return Map.of(
+                "entries", cache.estimatedSize(),
+                "bytes", cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L),
+                "offHeap", offHeap,
+                "hitCount", stats.hitCount(),
+                "missCount", stats.missCount(),
+                "hitRate", stats.hitRate(),
+                "evictionCount", stats.evictionCount());
+    }
+
+    private static byte[] compress(byte[] html) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(html.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(html);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // 保存したページ（本文はgzip圧縮済み）
+    public static class RenderedPage {
+        private final String version;
+        private final long renderedAt;
+        private final String contentType;
+        private final String etag;
+        private final long lastModified;
+        private final ByteBuffer body;
+
+        private RenderedPage(String version, long renderedAt, String contentType, String etag, long lastModified,
+                ByteBuffer body) {
+            this.version = version;
+            this.renderedAt = renderedAt;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public byte[] getGzipBytes() {
+            ByteBuffer buffer = body.duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        public byte[] getBytes() {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(getGzipBytes()))) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
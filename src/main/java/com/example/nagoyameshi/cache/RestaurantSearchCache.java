@@ -0,0 +1,77 @@
+package com.example.nagoyameshi.cache;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.example.nagoyameshi.dto.RestaurantSummary;
+import com.example.nagoyameshi.search.NgramTokenizer;
+import com.example.nagoyameshi.search.RestaurantQuery;
+import com.example.nagoyameshi.search.RestaurantStatsIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+// 店舗一覧の検索結果キャッシュ（件数の多いページほど重く数え、合計の行数で上限を決める）
+@Component
+public class RestaurantSearchCache {
+    private final CatalogVersion catalogVersion;
+    private final RestaurantStatsIndex restaurantStatsIndex;
+    private final Cache<String, Page<RestaurantSummary>> cache;
+
+    public RestaurantSearchCache(CatalogVersion catalogVersion, RestaurantStatsIndex restaurantStatsIndex,
+            @Value("${nagoyameshi.cache.search.max-rows:20000}") long maxRows) {
+        this.catalogVersion = catalogVersion;
+        this.restaurantStatsIndex = restaurantStatsIndex;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((String key, Page<RestaurantSummary> page) -> page.getNumberOfElements() + 1)
+                .recordStats()
+                .build();
+    }
+
+    public Page<RestaurantSummary> get(RestaurantQuery query, String order, Pageable pageable,
+            Supplier<Page<RestaurantSummary>> loader) {
+        return cache.get(key(query, order, pageable), key -> loader.get());
+    }
+
+    // 条件を正規化したキー（版数が変われば別のキーになり、古い結果はサイズ超過で追い出される）
+    private String key(RestaurantQuery query, String order, Pageable pageable) {
+        String keyword = query.getKeyword() != null ? NgramTokenizer.normalize(query.getKeyword()) : "";
+        String categories = String.join(",", query.getCategories().stream().sorted().toList());
+        return String.join("|",
+                String.valueOf(catalogVersion.current()),
+                // 評価・件数順はレビュー等が増えるたびに並びが変わるため、集計の版数も含める
+                RestaurantStatsIndex.isSortOrder(order) ? String.valueOf(restaurantStatsIndex.version()) : "",
+                keyword,
+                categories,
+                String.valueOf(query.getGenre()),
+                String.valueOf(query.getMaxPrice()),
+                String.valueOf(query.getWeekday()),
+                String.valueOf(query.getOpenSlot()),
+                // 起点は呼び出し側で丸めてから検索するため、そのままの値をキーにする（GeoPoint.rounded参照）
+                query.getOrigin() != null
+                        ? query.getOrigin().getLatitude() + "," + query.getOrigin().getLongitude()
+                        : "",
+                order == null || order.isEmpty() ? "createdAtDesc" : order,
+                String.valueOf(pageable.getPageNumber()),
+                String.valueOf(pageable.getPageSize()));
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        return Map.of(
+                "entries", cache.estimatedSize(),
+                "weight", cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L),
+                "hitCount", stats.hitCount(),
+                "missCount", stats.missCount(),
+                "hitRate", stats.hitRate(),
+                "evictionCount", stats.evictionCount(),
+                "evictionWeight", stats.evictionWeight(),
+                "catalogVersion", catalogVersion.current());
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.nagoyameshi.cache;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.InteractiveAuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.nagoyameshi.repository.FavoriteRepository;
+import com.example.nagoyameshi.repository.ReviewRepository;
+import com.example.nagoyameshi.security.UserDetailsImpl;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+// ユーザーごとの「お気に入り済み・レビュー済み」の店舗IDの集合（昇順に並べた店舗IDの配列で持ち、二分探索で判定する）
+// 店舗IDの大きさによらず件数分のメモリで済み、上限は全ユーザー分の店舗IDの合計で決める
+// ログイン時か最初の参照時に2回の問い合わせで読み込み、以降は一覧の1ページ分を問い合わせなしで判定する
+// お気に入り・レビューの登録・削除はコミット後に反映する（読み込み中の場合は読み込みの完了を待ってから反映する）
+@Component
+public class UserRestaurantMarks {
+    private final FavoriteRepository favoriteRepository;
+    private final ReviewRepository reviewRepository;
+    private final LoadingCache<Integer, Marks> cache;
+
+    public UserRestaurantMarks(FavoriteRepository favoriteRepository, ReviewRepository reviewRepository,
+            @Value("${nagoyameshi.cache.marks.max-ids:2000000}") long maxIds) {
+        this.favoriteRepository = favoriteRepository;
+        this.reviewRepository = reviewRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxIds)
+                .weigher((Integer userId, Marks marks) -> marks.size() + 1)
+                .expireAfterAccess(Duration.ofHours(1))
+                .recordStats()
+                .build(this::load);
+    }
+
+    public Marks get(Integer userId) {
+        return cache.get(userId);
+    }
+
+    // ログインのたびに読み直す（ほかのサーバーでの変更や取りこぼしをここで解消する）
+    @EventListener
+    public void onLogin(InteractiveAuthenticationSuccessEvent event) {
+        if (event.getAuthentication().getPrincipal() instanceof UserDetailsImpl userDetails) {
+            Integer userId = userDetails.getUser().getId();
+            cache.put(userId, load(userId));
+        }
+    }
+
+    public void favoriteAddedAfterCommit(Integer userId, Integer restaurantId) {
+        updateAfterCommit(userId, marks -> marks.withFavorite(restaurantId, true));
+    }
+
+    public void favoriteRemovedAfterCommit(Integer userId, Integer restaurantId) {
+        updateAfterCommit(userId, marks -> marks.withFavorite(restaurantId, false));
+    }
+
+    public void reviewAddedAfterCommit(Integer userId, Integer restaurantId) {
+        updateAfterCommit(userId, marks -> marks.withReview(restaurantId, true));
+    }
+
+    public void reviewRemovedAfterCommit(Integer userId, Integer restaurantId) {
+        updateAfterCommit(userId, marks -> marks.withReview(restaurantId, false));
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        return Map.of(
+                "entries", cache.estimatedSize(),
+                "weight", cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L),
+                "hitCount", stats.hitCount(),
+                "missCount", stats.missCount(),
+                "hitRate", stats.hitRate());
+    }
+
+    private Marks load(Integer userId) {
+        return new Marks(toSortedArray(favoriteRepository.findRestaurantIdsByUserId(userId)),
+                toSortedArray(reviewRepository.findRestaurantIdsByUserId(userId)));
+    }
+
+    // 読み込んでいないユーザーは次の参照時に読み込むため、ここでは何もしない
+    private void updateAfterCommit(Integer userId, UnaryOperator<Marks> update) {
+        Runnable apply = () -> cache.asMap().computeIfPresent(userId, (id, marks) -> update.apply(marks));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private static int[] toSortedArray(Collection<Integer> restaurantIds) {
+        return restaurantIds.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+    }
+
+    // 1ユーザー分の集合（変更のたびに複製するため、読み込み側はロックなしで参照できる）
+    public static class Marks {
+        private final int[] favorites;
+        private final int[] reviews;
+
+        private Marks(int[] favorites, int[] reviews) {
+            this.favorites = favorites;
+            this.reviews = reviews;
+        }
+
+        public boolean isFavorite(Integer restaurantId) {
+            return restaurantId != null && Arrays.binarySearch(favorites, restaurantId) >= 0;
+        }
+
+        public boolean isReviewed(Integer restaurantId) {
+            return restaurantId != null && Arrays.binarySearch(reviews, restaurantId) >= 0;
+        }
+
+        // キャッシュの重み（保持している店舗IDの数）
+        private int size() {
+            return favorites.length + reviews.length;
+        }
+
+        private Marks withFavorite(Integer restaurantId, boolean value) {
+            return new Marks(copyWith(favorites, restaurantId, value), reviews);
+        }
+
+        private Marks withReview(Integer restaurantId, boolean value) {
+            return new Marks(favorites, copyWith(reviews, restaurantId, value));
+        }
+
+        // 昇順を保ったまま1件追加・削除した複製（変わらなければそのまま返す）
+        private static int[] copyWith(int[] ids, int id, boolean value) {
+            int index = Arrays.binarySearch(ids, id);
+            if (value == (index >= 0)) {
+                return ids;
+            }
+            if (value) {
+                int insertAt = -index - 1;
+                int[] copy = new int[ids.length + 1];
+                System.arraycopy(ids, 0, copy, 0, insertAt);
+                copy[insertAt] = id;
+                System.arraycopy(ids, insertAt, copy, insertAt + 1, ids.length - insertAt);
+                return copy;
+            }
+            int[] copy = new int[ids.length - 1];
+            System.arraycopy(ids, 0, copy, 0, index);
+            System.arraycopy(ids, index + 1, copy, index, ids.length - index - 1);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.nagoyameshi.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.nagoyameshi.cache.EntityCaches;
+import com.example.nagoyameshi.cache.RenderedPageCache;
+import com.example.nagoyameshi.cache.RestaurantSearchCache;
+import com.example.nagoyameshi.cache.UserRestaurantMarks;
+import com.example.nagoyameshi.dto.RestaurantStatsRepairResult;
+import com.example.nagoyameshi.service.RestaurantStatsService;
+
+// キャッシュのヒット率・追い出し件数を確認する（本番でのサイズ調整用）
+@RestController
+@RequestMapping("/admin/cache")
+public class AdminCacheController {
+	private final RestaurantSearchCache restaurantSearchCache;
+	private final RenderedPageCache renderedPageCache;
+	private final EntityCaches entityCaches;
+	private final UserRestaurantMarks userRestaurantMarks;
+	private final RestaurantStatsService restaurantStatsService;
+
+	public AdminCacheController(RestaurantSearchCache restaurantSearchCache, RenderedPageCache renderedPageCache,
+			EntityCaches entityCaches, UserRestaurantMarks userRestaurantMarks,
+			RestaurantStatsService restaurantStatsService) {
+		this.restaurantSearchCache = restaurantSearchCache;
+		this.renderedPageCache = renderedPageCache;
+		this.entityCaches = entityCaches;
+		this.userRestaurantMarks = userRestaurantMarks;
+		this.restaurantStatsService = restaurantStatsService;
+	}
+
+	@GetMapping
+	public Map<String, Object> stats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("restaurantSearch", restaurantSearchCache.stats());
+		stats.put("renderedPage", renderedPageCache.stats());
+		stats.put("hibernate", entityCaches.stats());
+		stats.put("userRestaurantMarks", userRestaurantMarks.stats());
+
+		return stats;
+	}
+
+	// restaurant_statsと実際のレビュー等の件数のずれを確認する（修正はRestaurantStatsRepairRunnerで行う）
+	@GetMapping("/stats-drift")
+	public RestaurantStatsRepairResult statsDrift() {
+		return restaurantStatsService.checkDrift(false);
+	}
+}
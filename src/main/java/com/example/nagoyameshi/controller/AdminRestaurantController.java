@@ -1,9 +1,20 @@
 package com.example.nagoyameshi.controller;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -14,17 +25,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import com.example.nagoyameshi.dto.RestaurantDTO;
+import com.example.nagoyameshi.cache.CatalogVersion;
+import com.example.nagoyameshi.dto.RestaurantImportError;
+import com.example.nagoyameshi.dto.RestaurantImportProgress;
 import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.RestaurantChangeEventPublisher;
 import com.example.nagoyameshi.form.RestaurantEditForm;
 import com.example.nagoyameshi.form.RestaurantRegisterForm;
 import com.example.nagoyameshi.helper.AdminRestaurantHelper;
 import com.example.nagoyameshi.repository.RestaurantRepository;
 import com.example.nagoyameshi.service.CategoryService;
 import com.example.nagoyameshi.service.RestaurantCategoryService;
+import com.example.nagoyameshi.service.RestaurantExportService;
 import com.example.nagoyameshi.service.RestaurantHolidayService;
+import com.example.nagoyameshi.service.RestaurantImportService;
 import com.example.nagoyameshi.service.RestaurantService;
 import com.example.nagoyameshi.service.WeekdayService;
 
@@ -37,6 +56,10 @@ public class AdminRestaurantController {
 	private final WeekdayService weekdayService;
 	private final RestaurantHolidayService restaurantHolidayService;
 	private final RestaurantCategoryService restaurantCategoryService;
+	private final RestaurantChangeEventPublisher restaurantChangeEventPublisher;
+	private final CatalogVersion catalogVersion;
+	private final RestaurantExportService restaurantExportService;
+	private final RestaurantImportService restaurantImportService;
 
 	public AdminRestaurantController(
 			RestaurantRepository restaurantRepository,
@@ -44,13 +67,21 @@ public class AdminRestaurantController {
 			CategoryService categoryService,
 			WeekdayService weekdayService,
 			RestaurantHolidayService restaurantHolidayService,
-			RestaurantCategoryService restaurantCategoryService) {
+			RestaurantCategoryService restaurantCategoryService,
+			RestaurantChangeEventPublisher restaurantChangeEventPublisher,
+			CatalogVersion catalogVersion,
+			RestaurantExportService restaurantExportService,
+			RestaurantImportService restaurantImportService) {
 		this.restaurantRepository = restaurantRepository;
 		this.restaurantService = restaurantService;
 		this.categoryService = categoryService;
 		this.weekdayService = weekdayService;
 		this.restaurantHolidayService = restaurantHolidayService;
 		this.restaurantCategoryService = restaurantCategoryService;
+		this.restaurantChangeEventPublisher = restaurantChangeEventPublisher;
+		this.catalogVersion = catalogVersion;
+		this.restaurantExportService = restaurantExportService;
+		this.restaurantImportService = restaurantImportService;
 	}
 
 	@GetMapping
@@ -64,6 +95,74 @@ public class AdminRestaurantController {
 		return "admin/restaurants/index";
 	}
 
+	// 全店舗をCSVで書き出す（DBから読みながら送るため、件数が多くてもすぐにダウンロードが始まる）
+	@GetMapping("/export.csv")
+	public ResponseEntity<StreamingResponseBody> exportCsv() {
+		return ResponseEntity.ok()
+				.contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+				.header(HttpHeaders.CONTENT_DISPOSITION, attachment("csv"))
+				.body(restaurantExportService::writeCsv);
+	}
+
+	// 全店舗を1行1件のJSON（NDJSON）で書き出す
+	@GetMapping("/export.ndjson")
+	public ResponseEntity<StreamingResponseBody> exportNdjson() {
+		return ResponseEntity.ok()
+				.contentType(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+				.header(HttpHeaders.CONTENT_DISPOSITION, attachment("ndjson"))
+				.body(restaurantExportService::writeNdjson);
+	}
+
+	@GetMapping("/import")
+	public String importForm() {
+		return "admin/restaurants/import";
+	}
+
+	// アップロードされたCSV・NDJSONを別スレッドで取り込み、進捗画面へ移る
+	@PostMapping("/import")
+	public String importFile(@RequestParam("file") MultipartFile file, RedirectAttributes redirectAttributes)
+			throws IOException {
+		if (file.isEmpty()) {
+			redirectAttributes.addFlashAttribute("errorMessage", "ファイルを選択してください。");
+			return "redirect:/admin/restaurants/import";
+		}
+		RestaurantImportProgress progress = restaurantImportService.start(file);
+
+		return "redirect:/admin/restaurants/import/" + progress.getJobId();
+	}
+
+	@GetMapping("/import/{jobId}")
+	public String importStatus(@PathVariable String jobId, Model model) {
+		RestaurantImportProgress progress = restaurantImportService.getProgress(jobId);
+		if (progress == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
+		List<RestaurantImportError> errors = progress.getErrors();
+
+		model.addAttribute("progress", progress);
+		model.addAttribute("errors", errors.subList(0, Math.min(errors.size(), 100)));
+
+		return "admin/restaurants/import-status";
+	}
+
+	@GetMapping("/import/{jobId}/errors.csv")
+	public ResponseEntity<StreamingResponseBody> importErrors(@PathVariable String jobId) {
+		RestaurantImportProgress progress = restaurantImportService.getProgress(jobId);
+		if (progress == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
+		return ResponseEntity.ok()
+				.contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						ContentDisposition.attachment().filename("import-errors-" + jobId + ".csv").build().toString())
+				.body(outputStream -> restaurantImportService.writeErrorsCsv(progress, outputStream));
+	}
+
+	private static String attachment(String extension) {
+		String date = LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE);
+		return ContentDisposition.attachment().filename("restaurants-" + date + "." + extension).build().toString();
+	}
+
 	@GetMapping("/{id}")
 	public String show(@PathVariable Integer id, Model model) {
 		Restaurant restaurant = restaurantService.getReferenceById(id);
@@ -165,6 +264,8 @@ public class AdminRestaurantController {
 	@PostMapping("/{id}/delete")
 	public String delete(@PathVariable Integer id, RedirectAttributes redirectAttributes) {
 		restaurantRepository.deleteById(id);
+		restaurantChangeEventPublisher.publishDeleted(id);
+		catalogVersion.bump();
 
 		redirectAttributes.addFlashAttribute("successMessage", "店舗を削除しました。");
 
@@ -1,44 +1,48 @@
 package com.example.nagoyameshi.controller;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import com.example.nagoyameshi.entity.Favorite;
+import com.example.nagoyameshi.dto.CursorPage;
+import com.example.nagoyameshi.dto.FavoriteToggleResult;
+import com.example.nagoyameshi.dto.RestaurantSummary;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.User;
-import com.example.nagoyameshi.repository.FavoriteRepository;
 import com.example.nagoyameshi.repository.RestaurantRepository;
 import com.example.nagoyameshi.security.UserDetailsImpl;
 import com.example.nagoyameshi.service.FavoriteService;
 
 @Controller
 public class FavoriteController {
-	private final FavoriteRepository favoriteRepository;
+	//1回に表示するお気に入りの件数
+	private static final int PAGE_SIZE = 10;
+
 	private final FavoriteService favoriteService;
 	private final RestaurantRepository restaurantRepository;
 
-	public FavoriteController(FavoriteRepository favoriteRepository, RestaurantRepository restaurantRepository,
-			FavoriteService favoriteService) {
-		this.favoriteRepository = favoriteRepository;
+	public FavoriteController(RestaurantRepository restaurantRepository, FavoriteService favoriteService) {
 		this.restaurantRepository = restaurantRepository;
 		this.favoriteService = favoriteService;
 	}
 
+	//お気に入りに追加した店舗を新しい順に表示する（cursorより古いお気に入りを取得し、件数は数えない）
 	@GetMapping("/favorites")
 	public String index(@AuthenticationPrincipal UserDetailsImpl userDetailsImpl,
-			@PageableDefault(page = 0, size = 10, sort = "id") Pageable pageable, Model model) {
+			@RequestParam(required = false) String cursor, Model model) {
 		User user = userDetailsImpl.getUser();
-		Page<Favorite> favoritePage = favoriteRepository.findByUserOrderByCreatedAtDesc(user, pageable);
+		CursorPage<RestaurantSummary> favoritePage = favoriteService.getFavoriteRestaurants(user.getId(), cursor,
+				PAGE_SIZE);
 
 		model.addAttribute("favoritePage", favoritePage);
+		model.addAttribute("favoriteCount", favoriteService.getApproximateCount(user));
 
 		return "favorites/index";
 	}
@@ -48,21 +52,56 @@ public class FavoriteController {
 			@AuthenticationPrincipal UserDetailsImpl userDetailsImpl,
 			RedirectAttributes redirectAttributes,
 			Model model) {
-		Restaurant restaurant = restaurantRepository.getReferenceById(restaurantId);
 		User user = userDetailsImpl.getUser();
 
-		favoriteService.create(restaurant, user);
+		favoriteService.create(restaurantId, user.getId());
 		redirectAttributes.addFlashAttribute("successMessage", "お気に入りに追加しました。");
 
 		return "redirect:/restaurants/{restaurantId}";
 	}
 
+	//favoriteIdはURLの互換のために残し、削除は店舗とログインユーザーの組で行う（他人のお気に入りは消せない）
 	@PostMapping("/restaurants/{restaurantId}/favorites/{favoriteId}/delete")
-	public String delete(@PathVariable Integer favoriteId, RedirectAttributes redirectAttributes) {
-		favoriteRepository.deleteById(favoriteId);
+	public String delete(@PathVariable Integer restaurantId,
+			@AuthenticationPrincipal UserDetailsImpl userDetailsImpl,
+			RedirectAttributes redirectAttributes) {
+		favoriteService.delete(restaurantId, userDetailsImpl.getUser().getId());
 
 		redirectAttributes.addFlashAttribute("successMessage", "お気に入りを解除しました。");
 
 		return "redirect:/restaurants/{restaurantId}";
 	}
+
+	//お気に入りの追加・解除をその場で行い、結果をJSONで返す
+	//favoriteで切り替え後の状態を指定すれば、二度押しで同じリクエストが届いても結果は変わらない（省略時は今の状態を反転する）
+	@PostMapping(path = "/restaurants/{restaurantId}/favorites/toggle", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseBody
+	public FavoriteToggleResult toggle(@PathVariable Integer restaurantId,
+			@RequestParam(required = false) Boolean favorite,
+			@AuthenticationPrincipal UserDetailsImpl userDetailsImpl) {
+		boolean result = setFavorite(restaurantId, favorite, userDetailsImpl.getUser());
+
+		return new FavoriteToggleResult(restaurantId, result, favoriteService.getFavoriteCount(restaurantId));
+	}
+
+	//JavaScriptが使えない場合はフォームの送信として受け、店舗詳細に戻る
+	@PostMapping("/restaurants/{restaurantId}/favorites/toggle")
+	public String toggleForm(@PathVariable Integer restaurantId,
+			@RequestParam(required = false) Boolean favorite,
+			@AuthenticationPrincipal UserDetailsImpl userDetailsImpl,
+			RedirectAttributes redirectAttributes) {
+		boolean result = setFavorite(restaurantId, favorite, userDetailsImpl.getUser());
+
+		redirectAttributes.addFlashAttribute("successMessage", result ? "お気に入りに追加しました。" : "お気に入りを解除しました。");
+
+		return "redirect:/restaurants/{restaurantId}";
+	}
+
+	private boolean setFavorite(Integer restaurantId, Boolean favorite, User user) {
+		Restaurant restaurant = restaurantRepository.getReferenceById(restaurantId);
+		boolean wanted = favorite != null ? favorite : !favoriteService.isFavorite(restaurant, user);
+
+		favoriteService.setFavorite(restaurantId, user.getId(), wanted);
+		return wanted;
+	}
 }
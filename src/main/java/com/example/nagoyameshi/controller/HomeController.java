@@ -1,34 +1,26 @@
 package com.example.nagoyameshi.controller;
 
-import java.util.List;
-import java.util.Map;
-
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import com.example.nagoyameshi.entity.Restaurant;
-import com.example.nagoyameshi.repository.RestaurantRepository;
-import com.example.nagoyameshi.service.GenreService;
+import com.example.nagoyameshi.dto.HomeSnapshot;
+import com.example.nagoyameshi.service.HomeSnapshotService;
 
 @Controller
 public class HomeController {
-	private final RestaurantRepository restaurantRepository;
-	private final GenreService genreService;
+	private final HomeSnapshotService homeSnapshotService;
 
-	public HomeController(
-			RestaurantRepository restaurantRepository,
-			GenreService genreService) {
-		this.restaurantRepository = restaurantRepository;
-		this.genreService = genreService;
+	public HomeController(HomeSnapshotService homeSnapshotService) {
+		this.homeSnapshotService = homeSnapshotService;
 	}
 
+	// 新着店舗とジャンル・カテゴリはメモリ上のスナップショットから表示する（SQLは発行しない）
 	@GetMapping("/")
 	public String index(Model model) {
-		List<Restaurant> newRestaurants = restaurantRepository.findTop10ByOrderByCreatedAtDesc();
-		Map<String, List<String>> genreCategoryMap = genreService.getGenreCategoryMap();
-		model.addAttribute("genreCategoryMap", genreCategoryMap);
-		model.addAttribute("newRestaurants", newRestaurants);
+		HomeSnapshot snapshot = homeSnapshotService.get();
+		model.addAttribute("genreCategoryMap", snapshot.getGenreCategoryMap());
+		model.addAttribute("newRestaurants", snapshot.getNewRestaurants());
 		return "index";
 	}
 
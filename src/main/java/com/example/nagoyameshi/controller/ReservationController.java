@@ -2,8 +2,8 @@ package com.example.nagoyameshi.controller;
 
 import java.time.LocalDate;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -27,9 +27,8 @@ import com.example.nagoyameshi.helper.RestaurantHelper;
 import com.example.nagoyameshi.repository.ReservationRepository;
 import com.example.nagoyameshi.repository.RestaurantRepository;
 import com.example.nagoyameshi.security.UserDetailsImpl;
-import com.example.nagoyameshi.service.FavoriteService;
 import com.example.nagoyameshi.service.ReservationService;
-import com.example.nagoyameshi.service.ReviewService;
+import com.example.nagoyameshi.service.RestaurantDetailService;
 
 import jakarta.validation.Valid;
 
@@ -40,17 +39,15 @@ public class ReservationController {
 	private final ReservationRepository reservationRepository;
 	private final RestaurantRepository restaurantRepository;
 	private final ReservationService reservationService;
-	private final ReviewService reviewService;
-	private final FavoriteService favoriteService;
+	private final RestaurantDetailService restaurantDetailService;
 
 	// コンストラクタで依存関係を注入
 	public ReservationController(ReservationRepository reservationRepository, RestaurantRepository restaurantRepository,
-			ReservationService reservationService, ReviewService reviewService, FavoriteService favoriteService) {
+			ReservationService reservationService, RestaurantDetailService restaurantDetailService) {
 		this.reservationRepository = reservationRepository;
 		this.restaurantRepository = restaurantRepository;
 		this.reservationService = reservationService;
-		this.reviewService = reviewService;
-		this.favoriteService = favoriteService;
+		this.restaurantDetailService = restaurantDetailService;
 	}
 
 	// ユーザーの予約一覧を表示するメソッド
@@ -61,11 +58,12 @@ public class ReservationController {
 		// ログインしているユーザーを取得
 		User user = userDetailsImpl.getUser();
 
-		// ユーザーの予約情報を取得し、ページングを適用
-		Page<Reservation> reservationPage = reservationRepository.findByUserOrderByCreatedAtDesc(user, pageable);
+		// ユーザーの予約情報を取得し、ページングを適用（件数は数えず「もっと見る」で続きを読み込む）
+		Slice<Reservation> reservationPage = reservationRepository.findByUserOrderByCreatedAtDesc(user, pageable);
 
-		// モデルに予約情報を追加
+		// モデルに予約情報と件数（別スレッドで数えた概数）を追加
 		model.addAttribute("reservationPage", reservationPage);
+		model.addAttribute("reservationCount", reservationService.getApproximateCount(user));
 
 		// 予約一覧ページを表示
 		return "reservations/index";
@@ -111,8 +109,8 @@ public class ReservationController {
 			// モデルにレストラン情報とエラーメッセージをセットして、再度入力フォームを表示
 			redirectAttributes.addFlashAttribute("reservationInputForm", reservationInputForm);
 			model.addAttribute("errorMessage", "予約内容に不備があります。");
-			RestaurantHelper helper = new RestaurantHelper(reviewService, favoriteService);
-			helper.AddRestaurantDetails(model, restaurant, user, reservationInputForm);
+			RestaurantHelper helper = new RestaurantHelper(restaurantDetailService);
+			helper.AddRestaurantDetails(model, id, user, reservationInputForm);
 			return "restaurants/show";
 		}
 
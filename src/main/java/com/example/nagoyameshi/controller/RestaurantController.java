@@ -1,5 +1,7 @@
 package com.example.nagoyameshi.controller;
 
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
@@ -7,6 +9,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -14,75 +17,156 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.cache.PageValidators;
+import com.example.nagoyameshi.cache.UserRestaurantMarks;
 import com.example.nagoyameshi.entity.User;
 import com.example.nagoyameshi.form.ReservationInputForm;
 import com.example.nagoyameshi.helper.RestaurantHelper;
-import com.example.nagoyameshi.repository.RestaurantRepository;
+import com.example.nagoyameshi.search.PostalCodeGazetteer;
+import com.example.nagoyameshi.search.RestaurantQuery;
+import com.example.nagoyameshi.search.RestaurantSuggestIndex;
+import com.example.nagoyameshi.search.Suggestion;
+import com.example.nagoyameshi.search.WeeklySchedule;
 import com.example.nagoyameshi.security.UserDetailsImpl;
-import com.example.nagoyameshi.service.FavoriteService;
 import com.example.nagoyameshi.service.GenreService;
+import com.example.nagoyameshi.service.RestaurantDetailService;
 import com.example.nagoyameshi.service.RestaurantService;
-import com.example.nagoyameshi.service.ReviewService;
+import com.example.nagoyameshi.valueObject.GeoPoint;
 
 @Controller
 @RequestMapping("/restaurants")
 public class RestaurantController {
-	private final RestaurantRepository restaurantRepository;
 	private final RestaurantService restaurantService;
-	private final ReviewService reviewService;
-	private final FavoriteService favoriteService;
+	private final RestaurantDetailService restaurantDetailService;
 	private final GenreService genreService;
+	private final RestaurantSuggestIndex restaurantSuggestIndex;
+	private final PostalCodeGazetteer postalCodeGazetteer;
+	private final PageValidators pageValidators;
+	private final UserRestaurantMarks userRestaurantMarks;
 
 	public RestaurantController(
-			RestaurantRepository restaurantRepository,
 			RestaurantService restaurantService,
-			ReviewService reviewService,
-			FavoriteService favoriteService,
-			GenreService genreService) {
-		this.restaurantRepository = restaurantRepository;
+			RestaurantDetailService restaurantDetailService,
+			GenreService genreService,
+			RestaurantSuggestIndex restaurantSuggestIndex,
+			PostalCodeGazetteer postalCodeGazetteer,
+			PageValidators pageValidators,
+			UserRestaurantMarks userRestaurantMarks) {
 		this.restaurantService = restaurantService;
-		this.reviewService = reviewService;
-		this.favoriteService = favoriteService;
+		this.restaurantDetailService = restaurantDetailService;
 		this.genreService = genreService;
+		this.restaurantSuggestIndex = restaurantSuggestIndex;
+		this.postalCodeGazetteer = postalCodeGazetteer;
+		this.pageValidators = pageValidators;
+		this.userRestaurantMarks = userRestaurantMarks;
 	}
 
 	@GetMapping
 	public String index(@RequestParam(required = false) String keyword,
-			@RequestParam(required = false) String category,
+			@RequestParam(required = false) List<String> category,
+			@RequestParam(required = false) String genre,
 			@RequestParam(required = false) Integer price,
+			@RequestParam(required = false) String weekday,
+			@RequestParam(defaultValue = "false") boolean openNow,
+			@RequestParam(required = false) String openDay,
+			@RequestParam(required = false) @DateTimeFormat(pattern = "HH:mm") LocalTime openTime,
+			@RequestParam(required = false) String near,
+			@RequestParam(required = false) Double lat,
+			@RequestParam(required = false) Double lng,
 			@RequestParam(required = false) String order,
+			@RequestParam(required = false) String cursor,
 			@PageableDefault(page = 0, size = 10, sort = "id", direction = Direction.ASC) Pageable pageable,
+			@AuthenticationPrincipal UserDetailsImpl userDetailsImpl,
+			ServletWebRequest webRequest,
 			Model model) {
-		var restaurantPage = restaurantService.getRestaurants(keyword, category, price, order, pageable);
+		// 営業時間の条件は週内の15分枠の番号にして渡す（曜日の指定がなければ今日とする）
+		Integer openSlot = null;
+		if (openNow) {
+			openSlot = WeeklySchedule.slotOf(LocalDateTime.now());
+		} else if (openTime != null) {
+			openSlot = openDay == null || openDay.isEmpty()
+					? WeeklySchedule.slotOf(LocalDateTime.now().getDayOfWeek(), openTime)
+					: WeeklySchedule.slotOf(openDay, openTime);
+		}
+		// 未ログインで一覧に変更がなければ、検索せずに304を返す
+		if (userDetailsImpl == null && pageValidators.checkListing(webRequest, openSlot)) {
+			return null;
+		}
+		// 現在地（緯度経度）か郵便番号を起点にして、指定がなければ近い順に並べる
+		GeoPoint origin = null;
+		if (GeoPoint.isValid(lat, lng)) {
+			origin = new GeoPoint(lat, lng);
+		} else if (near != null && !near.isBlank()) {
+			origin = postalCodeGazetteer.locate(near);
+			model.addAttribute("nearNotFound", origin == null);
+		}
+		if (origin != null && (order == null || order.isEmpty())) {
+			order = "distance";
+		}
+		var query = new RestaurantQuery(keyword, category, genre, price, weekday, openSlot, origin);
+
+		// cursorが指定された場合は件数を数えないキーセットページングで取得する
+		if (cursor != null) {
+			var restaurantCursorPage = restaurantService.getRestaurants(query, order, cursor,
+					pageable.getPageSize());
+			model.addAttribute("restaurantCursorPage", restaurantCursorPage);
+		} else {
+			var restaurantPage = restaurantService.getRestaurants(query, order, pageable);
+			model.addAttribute("restaurantPage", restaurantPage);
+		}
 		Map<String, List<String>> genreCategoryMap = genreService.getGenreCategoryMap();
 
 		model.addAttribute("genreCategoryMap", genreCategoryMap);
-		model.addAttribute("restaurantPage", restaurantPage);
+		model.addAttribute("facets", restaurantService.getFacets(query));
 		model.addAttribute("keyword", keyword);
-		model.addAttribute("selectedCategory", category);
+		model.addAttribute("selectedCategory", query.getCategories());
+		model.addAttribute("genre", query.getGenre());
 		model.addAttribute("price", price);
+		model.addAttribute("weekday", query.getWeekday());
+		model.addAttribute("openNow", openNow);
+		model.addAttribute("openDay", openDay == null || openDay.isEmpty() ? null : openDay);
+		model.addAttribute("openTime", openTime);
+		model.addAttribute("near", origin != null && !GeoPoint.isValid(lat, lng) ? near : null);
+		model.addAttribute("lat", GeoPoint.isValid(lat, lng) ? lat : null);
+		model.addAttribute("lng", GeoPoint.isValid(lat, lng) ? lng : null);
 		model.addAttribute("order", order);
+		// ログイン中はカードにお気に入り済み・レビュー済みを表示する（未ログインの場合はnull）
+		model.addAttribute("marks", userDetailsImpl != null
+				? userRestaurantMarks.get(userDetailsImpl.getUser().getId())
+				: null);
 
 		return "restaurants/index";
 	}
 
+	// 検索欄の入力補完（店舗名・エリア・カテゴリ・ジャンルを前方一致で人気順に返す）
+	@GetMapping("/suggest")
+	@ResponseBody
+	public List<Suggestion> suggest(@RequestParam(defaultValue = "") String q,
+			@RequestParam(defaultValue = "8") int limit) {
+		return restaurantSuggestIndex.suggest(q, Math.max(1, Math.min(limit, 20)));
+	}
 
 
 	@GetMapping("/{id}")
 	public String show(@PathVariable Integer id, Model model,
-			@AuthenticationPrincipal UserDetailsImpl userDetailsImpl) {
+			@AuthenticationPrincipal UserDetailsImpl userDetailsImpl,
+			ServletWebRequest webRequest) {
+		// お気に入り・レビューなどユーザーごとの表示がない未ログイン時だけ、変更がなければ304を返す
+		if (userDetailsImpl == null && pageValidators.checkRestaurant(webRequest, id)) {
+			return null;
+		}
 
-		Restaurant restaurant = restaurantRepository.getReferenceById(id);
 		User user = null;
 
 		if (userDetailsImpl != null) {
 			user = userDetailsImpl.getUser();
 		}
 
-		RestaurantHelper helper = new RestaurantHelper(reviewService, favoriteService);
-		helper.AddRestaurantDetails(model, restaurant, user, new ReservationInputForm());
+		RestaurantHelper helper = new RestaurantHelper(restaurantDetailService);
+		helper.AddRestaurantDetails(model, id, user, new ReservationInputForm());
 
 		return "restaurants/show";
 	}
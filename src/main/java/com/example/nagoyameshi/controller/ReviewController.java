@@ -1,8 +1,9 @@
 package com.example.nagoyameshi.controller;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,48 +14,79 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.nagoyameshi.dto.CursorPage;
+import com.example.nagoyameshi.dto.ReviewView;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.Review;
 import com.example.nagoyameshi.entity.User;
 import com.example.nagoyameshi.form.ReviewEditForm;
 import com.example.nagoyameshi.form.ReviewRegisterForm;
+import com.example.nagoyameshi.helper.FragmentRenderer;
 import com.example.nagoyameshi.repository.RestaurantRepository;
 import com.example.nagoyameshi.repository.ReviewRepository;
 import com.example.nagoyameshi.security.UserDetailsImpl;
 import com.example.nagoyameshi.service.ReviewService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 //restaurants/{restaurantId}/reviewsへのルートパスを指定
 @Controller
 @RequestMapping("/restaurants/{restaurantId}/reviews")
 public class ReviewController {
+	//1回に表示するレビューの件数
+	private static final int PAGE_SIZE = 10;
+
 	private final ReviewRepository reviewRepository;
 	private final RestaurantRepository restaurantRepository;
 	private final ReviewService reviewService;
+	private final FragmentRenderer fragmentRenderer;
 
 	public ReviewController(ReviewRepository reviewRepository, RestaurantRepository restaurantRepository,
-			ReviewService reviewService) {
+			ReviewService reviewService, FragmentRenderer fragmentRenderer) {
 		this.reviewRepository = reviewRepository;
 		this.restaurantRepository = restaurantRepository;
 		this.reviewService = reviewService;
+		this.fragmentRenderer = fragmentRenderer;
 	}
 
-	//restaurantIdを取得してページ設定を指定する
+	//レビューを新しい順に表示する（cursorより古いレビューを取得し、件数は数えない）
 	@GetMapping
-	public String index(@PathVariable Integer restaurantId,
-			@PageableDefault(page = 0, size = 10, sort = "id") Pageable pageable, Model model) {
+	public String index(@PathVariable Integer restaurantId, @RequestParam(required = false) String cursor,
+			Model model) {
 		Restaurant restaurant = restaurantRepository.getReferenceById(restaurantId);
-
-		//検索時、投稿が古い順にレビューを並び替え
-		Page<Review> reviewPage = reviewRepository.findByRestaurantOrderByCreatedAtDesc(restaurant, pageable);
+		CursorPage<ReviewView> reviewPage = reviewService.getReviewFeed(restaurantId, cursor, PAGE_SIZE);
 
 		model.addAttribute("restaurant", restaurant);
+		model.addAttribute("restaurantId", restaurantId);
+		model.addAttribute("reviews", reviewPage.getContent());
 		model.addAttribute("reviewPage", reviewPage);
+		model.addAttribute("reviewCount", reviewService.getReviewCount(restaurant));
 
 		return "reviews/index";
 	}
 
+	//無限スクロール用に続きのレビューを一覧と同じ部品で描画し、次のカーソルとともにJSONで返す
+	@GetMapping("/feed")
+	@ResponseBody
+	public Map<String, Object> feed(@PathVariable Integer restaurantId, @RequestParam(required = false) String cursor,
+			HttpServletRequest request, HttpServletResponse response) throws Exception {
+		CursorPage<ReviewView> reviewPage = reviewService.getReviewFeed(restaurantId, cursor, PAGE_SIZE);
+
+		Map<String, Object> model = new HashMap<>();
+		model.put("restaurantId", restaurantId);
+		model.put("reviews", reviewPage.getContent());
+
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("html", fragmentRenderer.render("reviews/index :: reviewItems", model, request, response));
+		body.put("nextCursor", reviewPage.getNextCursor());
+		return body;
+	}
+
 	//レビューを投稿する
 	@GetMapping("/register")
 	public String register(@PathVariable Integer restaurantId, Model model) {
@@ -134,7 +166,7 @@ public class ReviewController {
 	//レビュー内容を削除する
 	@PostMapping("/{reviewId}/delete")
 	public String delete(@PathVariable Integer reviewId, RedirectAttributes redirectAttributes) {
-		reviewRepository.deleteById(reviewId);
+		reviewService.delete(reviewId);
 
 		redirectAttributes.addFlashAttribute("successMessage", "レビューを削除しました。");
 
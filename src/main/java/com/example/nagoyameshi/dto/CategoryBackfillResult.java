@@ -0,0 +1,20 @@
+package com.example.nagoyameshi.dto;
+
+import java.util.Set;
+
+import lombok.Getter;
+
+// 旧categoryカラムから中間テーブルへの移行結果
+@Getter
+public class CategoryBackfillResult {
+    private final int scannedRestaurants;
+    private final int insertedRows;
+    // categoriesテーブルに存在せず移行できなかったカテゴリ名
+    private final Set<String> unknownCategoryNames;
+
+    public CategoryBackfillResult(int scannedRestaurants, int insertedRows, Set<String> unknownCategoryNames) {
+        this.scannedRestaurants = scannedRestaurants;
+        this.insertedRows = insertedRows;
+        this.unknownCategoryNames = unknownCategoryNames;
+    }
+}
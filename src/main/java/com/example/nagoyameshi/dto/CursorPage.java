@@ -0,0 +1,36 @@
+package com.example.nagoyameshi.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// 件数を数えずに「次へ」だけを持つページ
+public class CursorPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> converter) {
+        return new CursorPage<>(content.stream().map(converter).collect(Collectors.toList()), nextCursor);
+    }
+}
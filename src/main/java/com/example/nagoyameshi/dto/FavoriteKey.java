@@ -0,0 +1,12 @@
+package com.example.nagoyameshi.dto;
+
+import java.sql.Timestamp;
+
+// お気に入り一覧のキーセットページング用に、インデックスだけで読める列を受け取るプロジェクション
+public interface FavoriteKey {
+    Integer getId();
+
+    Timestamp getCreatedAt();
+
+    Integer getRestaurantId();
+}
@@ -0,0 +1,18 @@
+package com.example.nagoyameshi.dto;
+
+import lombok.Getter;
+
+// お気に入りの切り替え結果（画面をその場で書き換えるためJSONで返す）
+@Getter
+public class FavoriteToggleResult {
+    private final Integer restaurantId;
+    // 切り替え後にお気に入り登録されているか
+    private final boolean favorite;
+    private final long favoriteCount;
+
+    public FavoriteToggleResult(Integer restaurantId, boolean favorite, long favoriteCount) {
+        this.restaurantId = restaurantId;
+        this.favorite = favorite;
+        this.favoriteCount = favoriteCount;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.nagoyameshi.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.Getter;
+
+// トップページの新着カード（カテゴリ名と評価を解決済みの不変な値）
+@Getter
+public class HomeRestaurant {
+    private final Integer id;
+    private final String name;
+    private final String imageName;
+    private final String address;
+    private final Integer price;
+    private final List<String> categoryNames;
+    // レビューがない場合はnull
+    private final BigDecimal averageScore;
+    private final long reviewCount;
+
+    public HomeRestaurant(RestaurantSummary summary, BigDecimal averageScore, long reviewCount) {
+        this.id = summary.getId();
+        this.name = summary.getName();
+        this.imageName = summary.getImageName();
+        this.address = summary.getAddress();
+        this.price = summary.getPrice();
+        this.categoryNames = List.copyOf(summary.getCategoryNames());
+        this.averageScore = averageScore;
+        this.reviewCount = reviewCount;
+    }
+
+    public String categoriesToString() {
+        return String.join("、", categoryNames);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.nagoyameshi.dto;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+// トップページに表示する内容をまとめた不変なスナップショット（作成時の版数を持ち、古くなったら作り直す）
+@Getter
+public class HomeSnapshot {
+    private final List<HomeRestaurant> newRestaurants;
+    private final Map<String, List<String>> genreCategoryMap;
+    private final long catalogVersion;
+    private final long statsVersion;
+
+    public HomeSnapshot(List<HomeRestaurant> newRestaurants, Map<String, List<String>> genreCategoryMap,
+            long catalogVersion, long statsVersion) {
+        this.newRestaurants = List.copyOf(newRestaurants);
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        genreCategoryMap.forEach((genre, categories) -> map.put(genre, List.copyOf(categories)));
+        this.genreCategoryMap = Collections.unmodifiableMap(map);
+        this.catalogVersion = catalogVersion;
+        this.statsVersion = statsVersion;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.nagoyameshi.dto;
+
+// 店舗IDごとの件数を受け取るプロジェクション
+public interface RestaurantCount {
+    Integer getRestaurantId();
+
+    Long getCount();
+}
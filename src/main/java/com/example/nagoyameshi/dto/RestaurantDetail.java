@@ -0,0 +1,83 @@
+package com.example.nagoyameshi.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.example.nagoyameshi.valueObject.HourMinute;
+
+import lombok.Getter;
+
+// 店舗詳細ページの表示内容（カテゴリ・定休日・レビューの集計・ログインユーザーの状態を解決済み）
+@Getter
+public class RestaurantDetail {
+    private final Integer id;
+    private final String name;
+    private final String imageName;
+    private final String description;
+    private final Integer price;
+    private final Integer seats;
+    private final String postalCode;
+    private final String address;
+    private final String phoneNumber;
+    private final HourMinute openingTime;
+    private final HourMinute closingTime;
+    private final List<String> categoryNames;
+    private final List<String> holidayNames;
+    private final long reviewCount;
+    // レビューがない場合はnull
+    private final BigDecimal averageScore;
+    // ログインユーザーのレビュー・お気に入り（未ログインや未登録の場合はnull）
+    private final Integer userReviewId;
+    private final Integer favoriteId;
+    private final long favoriteCount;
+    private final List<ReviewView> newReviews;
+
+    public RestaurantDetail(Integer id, String name, String imageName, String description, Integer price,
+            Integer seats, String postalCode, String address, String phoneNumber, HourMinute openingTime,
+            HourMinute closingTime, List<String> categoryNames, List<String> holidayNames, long reviewCount,
+            BigDecimal averageScore, Integer userReviewId, Integer favoriteId, long favoriteCount,
+            List<ReviewView> newReviews) {
+        this.id = id;
+        this.name = name;
+        this.imageName = imageName;
+        this.description = description;
+        this.price = price;
+        this.seats = seats;
+        this.postalCode = postalCode;
+        this.address = address;
+        this.phoneNumber = phoneNumber;
+        this.openingTime = openingTime;
+        this.closingTime = closingTime;
+        this.categoryNames = List.copyOf(categoryNames);
+        this.holidayNames = List.copyOf(holidayNames);
+        this.reviewCount = reviewCount;
+        this.averageScore = averageScore;
+        this.userReviewId = userReviewId;
+        this.favoriteId = favoriteId;
+        this.favoriteCount = favoriteCount;
+        this.newReviews = List.copyOf(newReviews);
+    }
+
+    public boolean isFavorite() {
+        return favoriteId != null;
+    }
+
+    public boolean hasUserAlreadyReviewed() {
+        return userReviewId != null;
+    }
+
+    public String getBusinessTime() {
+        if (openingTime == null || closingTime == null) {
+            return "";
+        }
+        return openingTime.toString() + "~" + closingTime.toString();
+    }
+
+    public String categoriesToString() {
+        return categoryNames.isEmpty() ? "なし" : String.join("、", categoryNames);
+    }
+
+    public String holidaysToString() {
+        return holidayNames.isEmpty() ? "なし" : String.join("、", holidayNames);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.nagoyameshi.dto;
+
+import lombok.Getter;
+
+// 一括登録で取り込めなかった行（行番号はヘッダーを除いたデータの何件目か）
+@Getter
+public class RestaurantImportError {
+    private final long row;
+    private final String name;
+    private final String message;
+
+    public RestaurantImportError(long row, String name, String message) {
+        this.row = row;
+        this.name = name;
+        this.message = message;
+    }
+}
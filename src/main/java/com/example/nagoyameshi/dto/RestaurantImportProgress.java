@@ -0,0 +1,75 @@
+package com.example.nagoyameshi.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+
+// 一括登録の進捗と行ごとのエラー（別スレッドで更新され、画面からは読み取りのみ）
+@Getter
+public class RestaurantImportProgress {
+    // 保持するエラー行の上限（超えた分は件数だけ数える）
+    private static final int MAX_ERRORS = 10000;
+
+    private final String jobId;
+    private final String fileName;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final AtomicLong processedRows = new AtomicLong();
+    private final AtomicLong importedRows = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final List<RestaurantImportError> errors = new ArrayList<>();
+    private volatile LocalDateTime finishedAt;
+    // ファイル全体を読めなかった場合の理由
+    private volatile String failureMessage;
+
+    public RestaurantImportProgress(String jobId, String fileName) {
+        this.jobId = jobId;
+        this.fileName = fileName;
+    }
+
+    public void rowProcessed() {
+        processedRows.incrementAndGet();
+    }
+
+    public void rowsImported(int count) {
+        importedRows.addAndGet(count);
+    }
+
+    public synchronized void addError(long row, String name, String message) {
+        failedRows.incrementAndGet();
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RestaurantImportError(row, name, message));
+        }
+    }
+
+    public long getProcessedRows() {
+        return processedRows.get();
+    }
+
+    public long getImportedRows() {
+        return importedRows.get();
+    }
+
+    public long getFailedRows() {
+        return failedRows.get();
+    }
+
+    public synchronized List<RestaurantImportError> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    public void finish() {
+        finishedAt = LocalDateTime.now();
+    }
+
+    public void fail(String message) {
+        failureMessage = message;
+        finishedAt = LocalDateTime.now();
+    }
+
+    public boolean isRunning() {
+        return finishedAt == null;
+    }
+}
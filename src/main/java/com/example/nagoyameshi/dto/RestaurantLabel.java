@@ -0,0 +1,8 @@
+package com.example.nagoyameshi.dto;
+
+// 店舗IDと名称（カテゴリ名・定休日名）の組を受け取るプロジェクション
+public interface RestaurantLabel {
+    Integer getRestaurantId();
+
+    String getName();
+}
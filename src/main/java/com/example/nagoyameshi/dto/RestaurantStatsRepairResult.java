@@ -0,0 +1,20 @@
+package com.example.nagoyameshi.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+
+// restaurant_statsの数え直しの結果
+@Getter
+public class RestaurantStatsRepairResult {
+    private final int checkedRestaurants;
+    // 保存値と実際の値がずれていた店舗（「店舗ID 12: review_count 5→6」の形式）
+    private final List<String> drifts;
+    private final int repairedRestaurants;
+
+    public RestaurantStatsRepairResult(int checkedRestaurants, List<String> drifts, int repairedRestaurants) {
+        this.checkedRestaurants = checkedRestaurants;
+        this.drifts = drifts;
+        this.repairedRestaurants = repairedRestaurants;
+    }
+}
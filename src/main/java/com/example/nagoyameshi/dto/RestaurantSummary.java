@@ -0,0 +1,191 @@
+package com.example.nagoyameshi.dto;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.nagoyameshi.entity.Restaurant;
+
+// 一覧画面用の軽量な店舗情報（カテゴリ名・定休日名はページ単位でまとめて設定する）
+public class RestaurantSummary {
+    private Integer id;
+    private String name;
+    private String imageName;
+    private String description;
+    private Integer price;
+    private Integer seats;
+    private String postalCode;
+    private String address;
+    private String phoneNumber;
+    private String businessHours;
+    private Timestamp createdAt;
+    private List<String> categoryNames = new ArrayList<>();
+    private List<String> holidayNames = new ArrayList<>();
+    // 距離順で検索した場合の起点からの距離（メートル）
+    private Long distance;
+    // restaurant_statsの平均点とレビュー数（レビューがなければnullと0）
+    private BigDecimal averageScore;
+    private long reviewCount;
+    // restaurant_statsのお気に入り数
+    private long favoriteCount;
+    // 表示した時点で営業中か（お気に入り一覧でのみ、営業時間の索引から設定する）
+    private boolean openNow;
+
+    // JPQLのコンストラクタ式から呼ばれる
+    public RestaurantSummary(Integer id, String name, String imageName, String description, Integer price,
+            Integer seats, String postalCode, String address, String phoneNumber, String businessHours,
+            Timestamp createdAt) {
+        this.id = id;
+        this.name = name;
+        this.imageName = imageName;
+        this.description = description;
+        this.price = price;
+        this.seats = seats;
+        this.postalCode = postalCode;
+        this.address = address;
+        this.phoneNumber = phoneNumber;
+        this.businessHours = businessHours;
+        this.createdAt = createdAt;
+    }
+
+    // 検索結果キャッシュ上の値を書き換えないよう、表示ごとの値（評価など）を設定する前に複製する
+    public RestaurantSummary copy() {
+        RestaurantSummary copy = new RestaurantSummary(id, name, imageName, description, price, seats, postalCode,
+                address, phoneNumber, businessHours, createdAt);
+        copy.categoryNames = categoryNames;
+        copy.holidayNames = holidayNames;
+        copy.distance = distance;
+        copy.averageScore = averageScore;
+        copy.reviewCount = reviewCount;
+        copy.favoriteCount = favoriteCount;
+        copy.openNow = openNow;
+        return copy;
+    }
+
+    // 取得済みのエンティティから生成する（関連コレクションには触れない）
+    public RestaurantSummary(Restaurant restaurant) {
+        this(restaurant.getId(), restaurant.getName(), restaurant.getImageName(), restaurant.getDescription(),
+                restaurant.getPrice(), restaurant.getSeats(), restaurant.getPostalCode(), restaurant.getAddress(),
+                restaurant.getPhoneNumber(), restaurant.getBusinessHours(), restaurant.getCreatedAt());
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getImageName() {
+        return imageName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Integer getPrice() {
+        return price;
+    }
+
+    public Integer getSeats() {
+        return seats;
+    }
+
+    public String getPostalCode() {
+        return postalCode;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public String getBusinessHours() {
+        return businessHours;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<String> getCategoryNames() {
+        return categoryNames;
+    }
+
+    public void setCategoryNames(List<String> categoryNames) {
+        this.categoryNames = categoryNames;
+    }
+
+    public List<String> getHolidayNames() {
+        return holidayNames;
+    }
+
+    public void setHolidayNames(List<String> holidayNames) {
+        this.holidayNames = holidayNames;
+    }
+
+    public Long getDistance() {
+        return distance;
+    }
+
+    public void setDistance(Long distance) {
+        this.distance = distance;
+    }
+
+    public BigDecimal getAverageScore() {
+        return averageScore;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setRating(BigDecimal averageScore, long reviewCount) {
+        this.averageScore = averageScore;
+        this.reviewCount = reviewCount;
+    }
+
+    public long getFavoriteCount() {
+        return favoriteCount;
+    }
+
+    public void setFavoriteCount(long favoriteCount) {
+        this.favoriteCount = favoriteCount;
+    }
+
+    public boolean isOpenNow() {
+        return openNow;
+    }
+
+    public void setOpenNow(boolean openNow) {
+        this.openNow = openNow;
+    }
+
+    // 「350m」「1.2km」のように表示する
+    public String distanceToString() {
+        if (distance == null) {
+            return "";
+        }
+        return distance < 1000 ? distance + "m" : String.format("%.1fkm", distance / 1000.0);
+    }
+
+    public String categoriesToString() {
+        if (categoryNames.isEmpty()) {
+            return "なし";
+        }
+        return String.join("、", categoryNames);
+    }
+
+    public String holidaysToString() {
+        if (holidayNames.isEmpty()) {
+            return "なし";
+        }
+        return String.join("、", holidayNames);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.nagoyameshi.dto;
+
+import java.sql.Timestamp;
+
+import lombok.Getter;
+
+// 画面表示用のレビュー（投稿者名まで1回の問い合わせで取得する）
+@Getter
+public class ReviewView {
+    private final Integer id;
+    private final Integer score;
+    private final String content;
+    private final Timestamp createdAt;
+    private final Integer userId;
+    private final String userName;
+
+    public ReviewView(Integer id, Integer score, String content, Timestamp createdAt, Integer userId,
+            String userName) {
+        this.id = id;
+        this.score = score;
+        this.content = content;
+        this.createdAt = createdAt;
+        this.userId = userId;
+        this.userName = userName;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.nagoyameshi.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Genre;
+import com.example.nagoyameshi.entity.Weekday;
+
+// ジャンル・カテゴリ・曜日のマスタをまとめた不変なスナップショット
+// IDと名前からの引き当てと、画面でよく使う形（ジャンルごとのカテゴリ名など）を作成時に用意しておく
+// 保持しているエンティティは全スレッドで共有するため外には渡さず、呼び出しのたびに複製を返す
+// （複製のジャンルには遅延読み込みの代わりに所属カテゴリを設定しておく）
+public class Taxonomy {
+    private final long version;
+    // 読み込んだ時刻（店舗詳細ページのLast-Modifiedに使う）
+    private final long loadedAt = System.currentTimeMillis();
+    private final List<Genre> genres;
+    private final List<Category> categories;
+    private final List<Weekday> weekdays;
+    private final Map<Integer, Genre> genreById;
+    private final Map<Integer, List<Category>> categoriesByGenre;
+    private final Map<Integer, Category> categoryById;
+    private final Map<String, Category> categoryByName;
+    private final Map<Integer, Weekday> weekdayById;
+    private final Map<String, Weekday> weekdayByName;
+    private final Map<String, List<String>> genreCategoryMap;
+    private final List<GenreCategoryDTO> genreCategoryDropdownList;
+
+    public Taxonomy(long version, List<Genre> genres, List<Category> categories, List<Weekday> weekdays) {
+        this.version = version;
+        this.genres = List.copyOf(genres);
+        this.categories = List.copyOf(categories);
+        this.weekdays = List.copyOf(weekdays);
+        this.genreById = index(genres, Genre::getId);
+        this.categoryById = index(categories, Category::getId);
+        this.categoryByName = index(categories, Category::getName);
+        this.weekdayById = index(weekdays, Weekday::getId);
+
+        // 曜日は「月曜日」と「月」のどちらでも引けるようにする
+        Map<String, Weekday> byName = new LinkedHashMap<>();
+        for (Weekday weekday : weekdays) {
+            byName.put(weekday.getName(), weekday);
+            byName.putIfAbsent(weekday.getName().substring(0, 1), weekday);
+        }
+        this.weekdayByName = Collections.unmodifiableMap(byName);
+
+        // カテゴリを持つジャンルのみ、ジャンル・カテゴリのID順に並べる
+        this.categoriesByGenre = categories.stream()
+                .filter(category -> category.getGenreId() != null)
+                .collect(Collectors.groupingBy(Category::getGenreId));
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        List<GenreCategoryDTO> dropdown = new ArrayList<>();
+        for (Genre genre : genres) {
+            List<Category> genreCategories = categoriesByGenre.get(genre.getId());
+            if (genreCategories == null) {
+                continue;
+            }
+            List<String> names = genreCategories.stream().map(Category::getName).collect(Collectors.toList());
+            map.put(genre.getName(), List.copyOf(names));
+            for (String name : names) {
+                dropdown.add(new GenreCategoryDTO(genre.getName(), name));
+            }
+        }
+        this.genreCategoryMap = Collections.unmodifiableMap(map);
+        this.genreCategoryDropdownList = List.copyOf(dropdown);
+    }
+
+    private static <K, V> Map<K, V> index(List<V> values, Function<V, K> key) {
+        Map<K, V> map = new LinkedHashMap<>();
+        for (V value : values) {
+            map.putIfAbsent(key.apply(value), value);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public List<Genre> getGenres() {
+        return genres.stream().map(this::copy).collect(Collectors.toList());
+    }
+
+    public List<Category> getCategories() {
+        return categories.stream().map(Taxonomy::copy).collect(Collectors.toList());
+    }
+
+    public List<Weekday> getWeekdays() {
+        return weekdays.stream().map(Taxonomy::copy).collect(Collectors.toList());
+    }
+
+    public Genre getGenre(Integer id) {
+        Genre genre = genreById.get(id);
+        return genre != null ? copy(genre) : null;
+    }
+
+    public Category getCategory(Integer id) {
+        Category category = categoryById.get(id);
+        return category != null ? copy(category) : null;
+    }
+
+    public Category getCategoryByName(String name) {
+        Category category = categoryByName.get(name);
+        return category != null ? copy(category) : null;
+    }
+
+    public Weekday getWeekday(Integer id) {
+        Weekday weekday = weekdayById.get(id);
+        return weekday != null ? copy(weekday) : null;
+    }
+
+    public Weekday getWeekdayByName(String name) {
+        Weekday weekday = weekdayByName.get(name);
+        return weekday != null ? copy(weekday) : null;
+    }
+
+    // 指定されたIDのカテゴリ（存在しないIDは除く）
+    public List<Category> getCategories(List<Integer> ids) {
+        return lookup(ids, categoryById).stream().map(Taxonomy::copy).collect(Collectors.toList());
+    }
+
+    public List<Weekday> getWeekdays(List<Integer> ids) {
+        return lookup(ids, weekdayById).stream().map(Taxonomy::copy).collect(Collectors.toList());
+    }
+
+    public Map<String, List<String>> getGenreCategoryMap() {
+        return genreCategoryMap;
+    }
+
+    public List<GenreCategoryDTO> getGenreCategoryDropdownList() {
+        return genreCategoryDropdownList;
+    }
+
+    // ジャンルの複製（所属カテゴリも複製して設定する）
+    private Genre copy(Genre genre) {
+        Genre copy = copyWithoutCategories(genre);
+        copy.setCategories(categoriesByGenre.getOrDefault(genre.getId(), List.of()).stream()
+                .map(Taxonomy::copy)
+                .collect(Collectors.toList()));
+        return copy;
+    }
+
+    // カテゴリの複製（ジャンルは所属カテゴリを持たない複製にし、互いを参照し合わないようにする）
+    private static Category copy(Category category) {
+        Category copy = new Category(category.getId(), category.getName());
+        copy.setGenreId(category.getGenreId());
+        copy.setGenre(category.getGenre() != null ? copyWithoutCategories(category.getGenre()) : null);
+        return copy;
+    }
+
+    private static Genre copyWithoutCategories(Genre genre) {
+        Genre copy = new Genre();
+        copy.setId(genre.getId());
+        copy.setName(genre.getName());
+        copy.setCategories(new ArrayList<>());
+        return copy;
+    }
+
+    private static Weekday copy(Weekday weekday) {
+        Weekday copy = new Weekday();
+        copy.setId(weekday.getId());
+        copy.setName(weekday.getName());
+        return copy;
+    }
+
+    private static <V> List<V> lookup(List<Integer> ids, Map<Integer, V> byId) {
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        return ids.stream().map(byId::get).filter(Objects::nonNull).distinct().collect(Collectors.toList());
+    }
+}
@@ -8,6 +8,10 @@ import java.util.List;
 import com.example.nagoyameshi.form.RestaurantEditForm;
 import com.example.nagoyameshi.form.RestaurantRegisterForm;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -19,6 +23,8 @@ import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "restaurants")
 @Data
 public class Restaurant {
@@ -55,12 +61,14 @@ public class Restaurant {
 	private String category;
 
     @OneToMany(mappedBy = "restaurant", cascade = CascadeType.ALL, orphanRemoval = false)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<RestaurantCategory> categories;
 
 	@Column(name = "regular_holiday")
 	private String regularHoliday;
 
 	@OneToMany(mappedBy = "restaurant", cascade = CascadeType.ALL, orphanRemoval = false)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<RestaurantHoliday> holidays = new ArrayList<>();
 
 	@Column(name = "business_hours")
@@ -0,0 +1,53 @@
+package com.example.nagoyameshi.entity;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+// 店舗ごとのレビュー・お気に入り・予約の集計（更新はRestaurantStatsRepositoryの差分更新のみで行う）
+@Entity
+@Table(name = "restaurant_stats")
+@Data
+public class RestaurantStats {
+	@Id
+	@Column(name = "restaurant_id")
+	private Integer restaurantId;
+
+	@Column(name = "review_count")
+	private Integer reviewCount;
+
+	@Column(name = "score_sum")
+	private Integer scoreSum;
+
+	@Column(name = "score1_count")
+	private Integer score1Count;
+
+	@Column(name = "score2_count")
+	private Integer score2Count;
+
+	@Column(name = "score3_count")
+	private Integer score3Count;
+
+	@Column(name = "score4_count")
+	private Integer score4Count;
+
+	@Column(name = "score5_count")
+	private Integer score5Count;
+
+	@Column(name = "average_score")
+	private BigDecimal averageScore;
+
+	@Column(name = "favorite_count")
+	private Integer favoriteCount;
+
+	@Column(name = "reservation_count")
+	private Integer reservationCount;
+
+	@Column(name = "updated_at", insertable = false, updatable = false)
+	private Timestamp updatedAt;
+}
@@ -0,0 +1,10 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEvent;
+
+// 一括登録などで多数の店舗が変わった後、インメモリの索引を1件ずつではなくまとめて作り直すためのイベント
+public class RestaurantCatalogReloadEvent extends ApplicationEvent {
+    public RestaurantCatalogReloadEvent(Object source) {
+        super(source);
+    }
+}
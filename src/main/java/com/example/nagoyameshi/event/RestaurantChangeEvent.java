@@ -0,0 +1,26 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.example.nagoyameshi.search.RestaurantEntry;
+
+import lombok.Getter;
+
+// 店舗の登録・更新・削除を通知するイベント
+@Getter
+public class RestaurantChangeEvent extends ApplicationEvent {
+    private Integer restaurantId;
+    // 削除時はnull
+    private RestaurantEntry entry;
+
+    public RestaurantChangeEvent(Object source, Integer restaurantId, RestaurantEntry entry) {
+        super(source);
+
+        this.restaurantId = restaurantId;
+        this.entry = entry;
+    }
+
+    public boolean isDeleted() {
+        return entry == null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.nagoyameshi.search.RestaurantEntry;
+
+@Component
+public class RestaurantChangeEventPublisher {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public RestaurantChangeEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    public void publishSaved(RestaurantEntry entry) {
+        applicationEventPublisher.publishEvent(new RestaurantChangeEvent(this, entry.getId(), entry));
+    }
+
+    public void publishDeleted(Integer restaurantId) {
+        applicationEventPublisher.publishEvent(new RestaurantChangeEvent(this, restaurantId, null));
+    }
+
+    public void publishReload() {
+        applicationEventPublisher.publishEvent(new RestaurantCatalogReloadEvent(this));
+    }
+
+    // カテゴリ・ジャンルの名前や所属が変わると索引の全店舗に影響するため、コミット後に全体を読み直させる
+    public void publishReloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishReload();
+                }
+            });
+        } else {
+            publishReload();
+        }
+    }
+}
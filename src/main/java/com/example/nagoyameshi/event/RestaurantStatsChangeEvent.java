@@ -0,0 +1,17 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import lombok.Getter;
+
+// 店舗の集計（レビュー数・お気に入り数など）をメモリ上で読み直したことを通知するイベント
+@Getter
+public class RestaurantStatsChangeEvent extends ApplicationEvent {
+    private Integer restaurantId;
+
+    public RestaurantStatsChangeEvent(Object source, Integer restaurantId) {
+        super(source);
+
+        this.restaurantId = restaurantId;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.nagoyameshi.helper;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+// テンプレートの一部（「テンプレート名 :: フラグメント名」）を文字列に描画する（JSONに埋め込んで返すため）
+// 通常の画面と同じビューで描画するため、sec:authorizeやフォームのCSRFトークンもそのまま使える
+@Component
+public class FragmentRenderer {
+    private final ThymeleafViewResolver thymeleafViewResolver;
+
+    public FragmentRenderer(ThymeleafViewResolver thymeleafViewResolver) {
+        this.thymeleafViewResolver = thymeleafViewResolver;
+    }
+
+    public String render(String viewName, Map<String, ?> model, HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        Locale locale = RequestContextUtils.getLocale(request);
+        View view = thymeleafViewResolver.resolveViewName(viewName, locale);
+        StringWriter html = new StringWriter();
+        view.render(model, request, new CapturingResponse(response, html));
+        return html.toString();
+    }
+
+    // 本文を文字列に書き出し、Content-Typeなどは実際のレスポンスに触れさせない
+    private static class CapturingResponse extends HttpServletResponseWrapper {
+        private final PrintWriter writer;
+
+        private CapturingResponse(HttpServletResponse response, StringWriter html) {
+            super(response);
+            this.writer = new PrintWriter(html);
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            return writer;
+        }
+
+        @Override
+        public void setContentType(String type) {
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {
+        }
+
+        @Override
+        public void setLocale(Locale locale) {
+        }
+
+        @Override
+        public void flushBuffer() {
+            writer.flush();
+        }
+    }
+}
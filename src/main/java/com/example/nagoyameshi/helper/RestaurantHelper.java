@@ -1,55 +1,40 @@
 package com.example.nagoyameshi.helper;
 
-import java.util.List;
-
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.ui.Model;
+import org.springframework.web.server.ResponseStatusException;
 
-import com.example.nagoyameshi.dto.RestaurantDTO;
-import com.example.nagoyameshi.entity.Favorite;
-import com.example.nagoyameshi.entity.Restaurant;
-import com.example.nagoyameshi.entity.Review;
+import com.example.nagoyameshi.dto.RestaurantDetail;
 import com.example.nagoyameshi.entity.User;
 import com.example.nagoyameshi.form.ReservationInputForm;
-import com.example.nagoyameshi.service.FavoriteService;
-import com.example.nagoyameshi.service.ReviewService;
+import com.example.nagoyameshi.service.RestaurantDetailService;
 
 @Component
 public class RestaurantHelper {
-    private final ReviewService reviewService;
-    private final FavoriteService favoriteService;
+    private final RestaurantDetailService restaurantDetailService;
 
-    public RestaurantHelper(ReviewService reviewService, FavoriteService favoriteService) {
-        this.reviewService = reviewService;
-        this.favoriteService = favoriteService;
+    public RestaurantHelper(RestaurantDetailService restaurantDetailService) {
+        this.restaurantDetailService = restaurantDetailService;
     }
 
+    // 店舗詳細・レビュー・ログインユーザーの状態はまとめて読み込む（店舗がなければ404）
     public void AddRestaurantDetails(
             Model model,
-            Restaurant restaurant,
+            Integer restaurantId,
             User user,
             ReservationInputForm reservationInputForm) {
-        boolean hasUserAlreadyReviewed = false;
-        boolean isFavorite = false;
-        Favorite favorite = null;
-
-        if (user != null) {
-            hasUserAlreadyReviewed = reviewService.hasUserAlreadyReviewed(restaurant, user);
-            isFavorite = favoriteService.isFavorite(restaurant, user);
-            if (isFavorite) {
-                favorite = favoriteService.getFavorite(restaurant, user);
-            }
+        RestaurantDetail restaurant = restaurantDetailService.load(restaurantId, user);
+        if (restaurant == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
 
-        List<Review> newReviews = reviewService.findTop6ByRestaurantOrderByCreatedAtDesc(restaurant);
-        long totalReviewCount = reviewService.countByRestaurant(restaurant);
-
-        model.addAttribute("restaurant", new RestaurantDTO(restaurant));
+        model.addAttribute("restaurant", restaurant);
         model.addAttribute("reservationInputForm", reservationInputForm);
-        model.addAttribute("hasUserAlreadyReviewed", hasUserAlreadyReviewed);
-        model.addAttribute("newReviews", newReviews);
-        model.addAttribute("totalReviewCount", totalReviewCount);
-        model.addAttribute("isFavorite", isFavorite);
-        model.addAttribute("favorite", favorite);
+        model.addAttribute("hasUserAlreadyReviewed", restaurant.hasUserAlreadyReviewed());
+        model.addAttribute("newReviews", restaurant.getNewReviews());
+        model.addAttribute("totalReviewCount", restaurant.getReviewCount());
+        model.addAttribute("isFavorite", restaurant.isFavorite());
+        model.addAttribute("favoriteId", restaurant.getFavoriteId());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.example.nagoyameshi.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.nagoyameshi.dto.CategoryBackfillResult;
+import com.example.nagoyameshi.service.RestaurantCategoryService;
+
+// 旧restaurants.categoryカラムをrestaurant_categoriesへ移行する一度きりのジョブ
+// nagoyameshi.backfill.legacy-categories=true で起動したときだけ実行する（何度実行しても結果は同じ）
+@Component
+@ConditionalOnProperty(name = "nagoyameshi.backfill.legacy-categories", havingValue = "true")
+public class LegacyCategoryBackfillRunner implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(LegacyCategoryBackfillRunner.class);
+
+    private final RestaurantCategoryService restaurantCategoryService;
+
+    public LegacyCategoryBackfillRunner(RestaurantCategoryService restaurantCategoryService) {
+        this.restaurantCategoryService = restaurantCategoryService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        CategoryBackfillResult result = restaurantCategoryService.backfillLegacyCategories();
+
+        logger.info("旧カテゴリの移行が完了しました：店舗{}件を確認、{}件を追加",
+                result.getScannedRestaurants(), result.getInsertedRows());
+        if (!result.getUnknownCategoryNames().isEmpty()) {
+            logger.warn("categoriesテーブルに存在しないため移行できなかったカテゴリ：{}",
+                    result.getUnknownCategoryNames());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.nagoyameshi.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.nagoyameshi.dto.RestaurantStatsRepairResult;
+import com.example.nagoyameshi.service.RestaurantStatsService;
+
+// restaurant_statsをレビュー・お気に入り・予約から数え直し、ずれていた店舗を上書きするジョブ
+// nagoyameshi.repair.restaurant-stats=true で起動したときだけ実行する（何度実行しても結果は同じ）
+@Component
+@ConditionalOnProperty(name = "nagoyameshi.repair.restaurant-stats", havingValue = "true")
+public class RestaurantStatsRepairRunner implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantStatsRepairRunner.class);
+
+    private final RestaurantStatsService restaurantStatsService;
+
+    public RestaurantStatsRepairRunner(RestaurantStatsService restaurantStatsService) {
+        this.restaurantStatsService = restaurantStatsService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        RestaurantStatsRepairResult result = restaurantStatsService.checkDrift(true);
+
+        logger.info("集計の数え直しが完了しました：店舗{}件を確認、{}件にずれ、{}件を修正",
+                result.getCheckedRestaurants(), result.getDrifts().size(), result.getRepairedRestaurants());
+        for (String drift : result.getDrifts()) {
+            logger.warn("集計のずれ：{}", drift);
+        }
+    }
+}
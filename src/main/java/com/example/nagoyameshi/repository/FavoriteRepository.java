@@ -1,15 +1,61 @@
 package com.example.nagoyameshi.repository;
 
-import org.springframework.data.domain.Page;
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.example.nagoyameshi.dto.FavoriteKey;
+import com.example.nagoyameshi.dto.RestaurantCount;
 import com.example.nagoyameshi.entity.Favorite;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.User;
 
+import jakarta.persistence.QueryHint;
+
 public interface FavoriteRepository extends JpaRepository<Favorite, Integer> {
-    public Page<Favorite> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
+    // お気に入り一覧のキーセットページング（カーソルより古いお気に入りの店舗IDだけを取得する）
+    // (user_id, created_at, id)のインデックスだけで読めるため、店舗の情報は別途まとめて取得する
+    @Query("SELECT f.id AS id, f.createdAt AS createdAt, f.restaurant.id AS restaurantId FROM Favorite f "
+            + "WHERE f.user.id = :userId "
+            + "AND (f.createdAt < :createdAt OR (f.createdAt = :createdAt AND f.id < :id)) "
+            + "ORDER BY f.createdAt DESC, f.id DESC")
+    public List<FavoriteKey> findKeysByUserIdBefore(@Param("userId") Integer userId,
+            @Param("createdAt") Timestamp createdAt, @Param("id") Integer id, Pageable pageable);
+
+    public long countByUserId(Integer userId);
 
     public Favorite findByRestaurantAndUser(Restaurant restaurant, User user);
+
+    public boolean existsByRestaurantIdAndUserId(Integer restaurantId, Integer userId);
+
+    // 登録済みなら何もしない（一意制約の重複だけを許し、外部キー違反などはエラーにする）
+    // 重複時の件数は接続設定（useAffectedRows）で0か1に変わるため、登録済みかどうかは呼び出し側で確認する
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "favorites"))
+    @Query(value = "INSERT INTO favorites (restaurant_id, user_id) VALUES (:restaurantId, :userId) "
+            + "ON DUPLICATE KEY UPDATE id = id", nativeQuery = true)
+    public int insertIfAbsent(@Param("restaurantId") Integer restaurantId, @Param("userId") Integer userId);
+
+    // 本人のお気に入りだけを削除する（削除した件数を返す）
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "favorites"))
+    @Query(value = "DELETE FROM favorites WHERE restaurant_id = :restaurantId AND user_id = :userId",
+            nativeQuery = true)
+    public int deleteByRestaurantIdAndUserId(@Param("restaurantId") Integer restaurantId,
+            @Param("userId") Integer userId);
+
+    // ユーザーがお気に入りに追加した店舗のID
+    @Query("SELECT f.restaurant.id FROM Favorite f WHERE f.user.id = :userId")
+    public List<Integer> findRestaurantIdsByUserId(@Param("userId") Integer userId);
+
+    // 店舗ごとのお気に入り数
+    @Query("SELECT f.restaurant.id AS restaurantId, COUNT(f) AS count FROM Favorite f GROUP BY f.restaurant.id")
+    public List<RestaurantCount> countGroupByRestaurant();
 }
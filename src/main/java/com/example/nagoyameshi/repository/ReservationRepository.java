@@ -1,13 +1,15 @@
 package com.example.nagoyameshi.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.example.nagoyameshi.entity.Reservation;
 import com.example.nagoyameshi.entity.User;
 
 public interface ReservationRepository extends JpaRepository<Reservation, Integer> {
-	public Page<Reservation> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
+	// 件数は数えず、次があるかは1件多く取得して判定する
+	public Slice<Reservation> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
 
+	public long countByUserId(Integer userId);
 }
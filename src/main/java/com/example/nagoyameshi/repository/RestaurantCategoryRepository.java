@@ -1,8 +1,14 @@
 package com.example.nagoyameshi.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.nagoyameshi.dto.RestaurantLabel;
 import com.example.nagoyameshi.entity.RestaurantCategory;
 
 @Repository
@@ -12,4 +18,9 @@ public interface RestaurantCategoryRepository extends JpaRepository<RestaurantCa
     RestaurantCategory findByRestaurantIdAndCategoryId(int restaurantId, int categoryId);
 
     void deleteByRestaurantId(Integer restaurant_id);
+
+    // 一覧の1ページ分のカテゴリ名をまとめて取得する
+    @Query("SELECT rc.restaurantId AS restaurantId, c.name AS name FROM RestaurantCategory rc JOIN rc.category c "
+            + "WHERE rc.restaurantId IN :restaurantIds ORDER BY rc.id")
+    List<RestaurantLabel> findCategoryNamesByRestaurantIdIn(@Param("restaurantIds") Collection<Integer> restaurantIds);
 }
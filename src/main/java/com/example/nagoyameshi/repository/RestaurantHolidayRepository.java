@@ -1,14 +1,23 @@
 package com.example.nagoyameshi.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.nagoyameshi.dto.RestaurantLabel;
 import com.example.nagoyameshi.entity.RestaurantHoliday;
 
 @Repository
 public interface RestaurantHolidayRepository extends JpaRepository<RestaurantHoliday, Integer> {
     List<RestaurantHoliday> findByRestaurantId(Integer restaurantId);
     void deleteByRestaurantId(Integer restaurant_id);
+
+    // 一覧の1ページ分の定休日名をまとめて取得する
+    @Query("SELECT h.restaurant_id AS restaurantId, w.name AS name FROM RestaurantHoliday h JOIN h.weekday w "
+            + "WHERE h.restaurant_id IN :restaurantIds ORDER BY w.id")
+    List<RestaurantLabel> findWeekdayNamesByRestaurantIdIn(@Param("restaurantIds") Collection<Integer> restaurantIds);
 }
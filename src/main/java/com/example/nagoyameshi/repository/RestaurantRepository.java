@@ -1,15 +1,36 @@
 package com.example.nagoyameshi.repository;
 
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.nagoyameshi.dto.RestaurantSummary;
 import com.example.nagoyameshi.entity.Restaurant;
 
 public interface RestaurantRepository extends JpaRepository<Restaurant, Integer> {
-	public Page<Restaurant> findByNameLike(String keyword, Pageable pageable);
+	String SUMMARY = "new com.example.nagoyameshi.dto.RestaurantSummary(r.id, r.name, r.imageName, r.description, "
+			+ "r.price, r.seats, r.postalCode, r.address, r.phoneNumber, r.businessHours, r.createdAt)";
+	String IN_CATEGORY = "EXISTS (SELECT 1 FROM RestaurantCategory rc JOIN rc.category c "
+			+ "WHERE rc.restaurantId = r.id AND c.name = :category)";
+	String IN_GENRE = "EXISTS (SELECT 1 FROM RestaurantCategory rc JOIN rc.category c JOIN c.genre g "
+			+ "WHERE rc.restaurantId = r.id AND g.name = :genre)";
+
+	// 一覧表示用：必要な列だけを読み込み、関連コレクションは読み込まない
+	@Query(value = "SELECT " + SUMMARY + " FROM Restaurant r WHERE r.name LIKE :keyword",
+			countQuery = "SELECT COUNT(r) FROM Restaurant r WHERE r.name LIKE :keyword")
+	public Page<RestaurantSummary> findSummariesByNameLike(@Param("keyword") String keyword, Pageable pageable);
+
+	@Query(value = "SELECT " + SUMMARY + " FROM Restaurant r", countQuery = "SELECT COUNT(r) FROM Restaurant r")
+	public Page<RestaurantSummary> findAllSummaries(Pageable pageable);
+
+	@Query("SELECT " + SUMMARY + " FROM Restaurant r WHERE r.id IN :ids")
+	public List<RestaurantSummary> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
 
 	public Page<Restaurant> findByNameLikeOrAddressLikeOrderByCreatedAtDesc(String nameKeyword, String addressKeyword,
 			Pageable pageable);
@@ -17,9 +38,24 @@ public interface RestaurantRepository extends JpaRepository<Restaurant, Integer>
 	public Page<Restaurant> findByNameLikeOrAddressLikeOrderByPriceAsc(String nameKeyword, String addressKeyword,
 			Pageable pageable);
 
-	public Page<Restaurant> findByCategoryLikeOrderByCreatedAtDesc(String category, Pageable pageable);
+	// カテゴリ名の完全一致（restaurant_categoriesの(category_id, restaurant_id)インデックスで絞り込む）
+	@Query(value = "SELECT r FROM Restaurant r WHERE " + IN_CATEGORY + " ORDER BY r.createdAt DESC, r.id DESC",
+			countQuery = "SELECT COUNT(r) FROM Restaurant r WHERE " + IN_CATEGORY)
+	public Page<Restaurant> findByCategoryNameOrderByCreatedAtDesc(@Param("category") String category,
+			Pageable pageable);
+
+	@Query(value = "SELECT r FROM Restaurant r WHERE " + IN_CATEGORY + " ORDER BY r.price ASC, r.id ASC",
+			countQuery = "SELECT COUNT(r) FROM Restaurant r WHERE " + IN_CATEGORY)
+	public Page<Restaurant> findByCategoryNameOrderByPriceAsc(@Param("category") String category, Pageable pageable);
+
+	// ジャンル単位（ジャンルに属するいずれかのカテゴリを持つ店舗）
+	@Query(value = "SELECT r FROM Restaurant r WHERE " + IN_GENRE + " ORDER BY r.createdAt DESC, r.id DESC",
+			countQuery = "SELECT COUNT(r) FROM Restaurant r WHERE " + IN_GENRE)
+	public Page<Restaurant> findByGenreNameOrderByCreatedAtDesc(@Param("genre") String genre, Pageable pageable);
 
-	public Page<Restaurant> findByCategoryLikeOrderByPriceAsc(String category, Pageable pageable);
+	@Query(value = "SELECT r FROM Restaurant r WHERE " + IN_GENRE + " ORDER BY r.price ASC, r.id ASC",
+			countQuery = "SELECT COUNT(r) FROM Restaurant r WHERE " + IN_GENRE)
+	public Page<Restaurant> findByGenreNameOrderByPriceAsc(@Param("genre") String genre, Pageable pageable);
 
 	public Page<Restaurant> findByPriceLessThanEqualOrderByCreatedAtDesc(Integer price, Pageable pageable);
 
@@ -29,5 +65,85 @@ public interface RestaurantRepository extends JpaRepository<Restaurant, Integer>
 
 	public Page<Restaurant> findAllByOrderByPriceAsc(Pageable pageable);
 
+	// restaurant_statsの(集計値, 店舗ID)のインデックスの順に読む
+	@Query(value = "SELECT r FROM Restaurant r JOIN RestaurantStats s ON s.restaurantId = r.id "
+			+ "ORDER BY s.averageScore DESC, s.restaurantId DESC", countQuery = "SELECT COUNT(r) FROM Restaurant r")
+	public Page<Restaurant> findAllOrderByAverageScoreDesc(Pageable pageable);
+
+	@Query(value = "SELECT r FROM Restaurant r JOIN RestaurantStats s ON s.restaurantId = r.id "
+			+ "ORDER BY s.reviewCount DESC, s.restaurantId DESC", countQuery = "SELECT COUNT(r) FROM Restaurant r")
+	public Page<Restaurant> findAllOrderByReviewCountDesc(Pageable pageable);
+
+	@Query(value = "SELECT r FROM Restaurant r JOIN RestaurantStats s ON s.restaurantId = r.id "
+			+ "ORDER BY s.favoriteCount DESC, s.restaurantId DESC", countQuery = "SELECT COUNT(r) FROM Restaurant r")
+	public Page<Restaurant> findAllOrderByFavoriteCountDesc(Pageable pageable);
+
 	public List<Restaurant> findTop10ByOrderByCreatedAtDesc();
+
+	// キーセットページング：(並び替えキー, 店舗ID)がカーソルより後ろの行をpageableの件数だけ取得する（件数取得クエリなし）
+	@Query("SELECT r FROM Restaurant r WHERE r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id) "
+			+ "ORDER BY r.createdAt DESC, r.id DESC")
+	public List<Restaurant> findAfterOrderByCreatedAtDesc(@Param("createdAt") Timestamp createdAt,
+			@Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE r.price > :price OR (r.price = :price AND r.id > :id) "
+			+ "ORDER BY r.price ASC, r.id ASC")
+	public List<Restaurant> findAfterOrderByPriceAsc(@Param("price") Integer price, @Param("id") Integer id,
+			Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE (r.name LIKE :keyword OR r.address LIKE :keyword) "
+			+ "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) "
+			+ "ORDER BY r.createdAt DESC, r.id DESC")
+	public List<Restaurant> findByKeywordAfterOrderByCreatedAtDesc(@Param("keyword") String keyword,
+			@Param("createdAt") Timestamp createdAt, @Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE (r.name LIKE :keyword OR r.address LIKE :keyword) "
+			+ "AND (r.price > :price OR (r.price = :price AND r.id > :id)) "
+			+ "ORDER BY r.price ASC, r.id ASC")
+	public List<Restaurant> findByKeywordAfterOrderByPriceAsc(@Param("keyword") String keyword,
+			@Param("price") Integer price, @Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE " + IN_CATEGORY
+			+ " AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) "
+			+ "ORDER BY r.createdAt DESC, r.id DESC")
+	public List<Restaurant> findByCategoryAfterOrderByCreatedAtDesc(@Param("category") String category,
+			@Param("createdAt") Timestamp createdAt, @Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE " + IN_CATEGORY
+			+ " AND (r.price > :price OR (r.price = :price AND r.id > :id)) "
+			+ "ORDER BY r.price ASC, r.id ASC")
+	public List<Restaurant> findByCategoryAfterOrderByPriceAsc(@Param("category") String category,
+			@Param("price") Integer price, @Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE " + IN_GENRE
+			+ " AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) "
+			+ "ORDER BY r.createdAt DESC, r.id DESC")
+	public List<Restaurant> findByGenreAfterOrderByCreatedAtDesc(@Param("genre") String genre,
+			@Param("createdAt") Timestamp createdAt, @Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE " + IN_GENRE
+			+ " AND (r.price > :price OR (r.price = :price AND r.id > :id)) "
+			+ "ORDER BY r.price ASC, r.id ASC")
+	public List<Restaurant> findByGenreAfterOrderByPriceAsc(@Param("genre") String genre,
+			@Param("price") Integer price, @Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE r.price <= :maxPrice "
+			+ "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) "
+			+ "ORDER BY r.createdAt DESC, r.id DESC")
+	public List<Restaurant> findByPriceLessThanEqualAfterOrderByCreatedAtDesc(@Param("maxPrice") Integer maxPrice,
+			@Param("createdAt") Timestamp createdAt, @Param("id") Integer id, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE r.price <= :maxPrice "
+			+ "AND (r.price > :price OR (r.price = :price AND r.id > :id)) "
+			+ "ORDER BY r.price ASC, r.id ASC")
+	public List<Restaurant> findByPriceLessThanEqualAfterOrderByPriceAsc(@Param("maxPrice") Integer maxPrice,
+			@Param("price") Integer price, @Param("id") Integer id, Pageable pageable);
+
+	// 検索インデックス構築用にカテゴリをまとめて取得する
+	@Query("SELECT DISTINCT r FROM Restaurant r LEFT JOIN FETCH r.categories rc LEFT JOIN FETCH rc.category c LEFT JOIN FETCH c.genre")
+	public List<Restaurant> findAllWithCategories();
+
+	// 2つのListを同時にJOIN FETCHできないため、定休日は別クエリで同じ永続化コンテキストに読み込む
+	@Query("SELECT DISTINCT r FROM Restaurant r LEFT JOIN FETCH r.holidays h LEFT JOIN FETCH h.weekday")
+	public List<Restaurant> findAllWithHolidays();
 }
@@ -0,0 +1,85 @@
+package com.example.nagoyameshi.repository;
+
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.example.nagoyameshi.entity.RestaurantStats;
+
+import jakarta.persistence.QueryHint;
+
+// 集計値は読み込んで書き戻さず、1行のUPDATEで差分を加算する（同時に更新されても数え漏れがないように）
+// 更新系のSQLは対象をrestaurant_statsに限定し、2次キャッシュ全体が破棄されないようにする
+public interface RestaurantStatsRepository extends JpaRepository<RestaurantStats, Integer> {
+	// 集計行がなければ0件の行を作る
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "restaurant_stats"))
+	@Query(value = "INSERT IGNORE INTO restaurant_stats (restaurant_id) VALUES (:restaurantId)", nativeQuery = true)
+	public int insertIfAbsent(@Param("restaurantId") Integer restaurantId);
+
+	// MySQLのUPDATEは左から順に代入されるため、平均点は加算後の合計と件数で求まる
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "restaurant_stats"))
+	@Query(value = "UPDATE restaurant_stats SET review_count = review_count + :count, score_sum = score_sum + :sum, "
+			+ "score1_count = score1_count + :score1, score2_count = score2_count + :score2, "
+			+ "score3_count = score3_count + :score3, score4_count = score4_count + :score4, "
+			+ "score5_count = score5_count + :score5, "
+			+ "average_score = IF(review_count > 0, score_sum / review_count, 0) "
+			+ "WHERE restaurant_id = :restaurantId", nativeQuery = true)
+	public int addReviewDelta(@Param("restaurantId") Integer restaurantId, @Param("count") int count,
+			@Param("sum") int sum, @Param("score1") int score1, @Param("score2") int score2,
+			@Param("score3") int score3, @Param("score4") int score4, @Param("score5") int score5);
+
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "restaurant_stats"))
+	@Query(value = "UPDATE restaurant_stats SET favorite_count = GREATEST(favorite_count + :delta, 0) "
+			+ "WHERE restaurant_id = :restaurantId", nativeQuery = true)
+	public int addFavoriteDelta(@Param("restaurantId") Integer restaurantId, @Param("delta") int delta);
+
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "restaurant_stats"))
+	@Query(value = "UPDATE restaurant_stats SET reservation_count = GREATEST(reservation_count + :delta, 0) "
+			+ "WHERE restaurant_id = :restaurantId", nativeQuery = true)
+	public int addReservationDelta(@Param("restaurantId") Integer restaurantId, @Param("delta") int delta);
+
+	// 集計行の値と、レビュー・お気に入り・予約から数え直した値を店舗ごとに並べる（集計行がなければ前半はnull）
+	// 列の並びは RestaurantStatsService.STATS_COLUMNS の順で、保存値9列・実際の値9列
+	@Query(value = "SELECT r.restaurant_id, "
+			+ "s.review_count, s.score_sum, s.score1_count, s.score2_count, s.score3_count, s.score4_count, "
+			+ "s.score5_count, s.favorite_count, s.reservation_count, "
+			+ "COALESCE(rv.review_count, 0), COALESCE(rv.score_sum, 0), COALESCE(rv.score1_count, 0), "
+			+ "COALESCE(rv.score2_count, 0), COALESCE(rv.score3_count, 0), COALESCE(rv.score4_count, 0), "
+			+ "COALESCE(rv.score5_count, 0), "
+			+ "(SELECT COUNT(*) FROM favorites f WHERE f.restaurant_id = r.restaurant_id), "
+			+ "(SELECT COUNT(*) FROM reservations rs WHERE rs.restaurant_id = r.restaurant_id) "
+			+ "FROM restaurants r "
+			+ "LEFT JOIN restaurant_stats s ON s.restaurant_id = r.restaurant_id "
+			+ "LEFT JOIN (SELECT restaurant_id, COUNT(*) AS review_count, SUM(score) AS score_sum, "
+			+ "SUM(score = 1) AS score1_count, SUM(score = 2) AS score2_count, SUM(score = 3) AS score3_count, "
+			+ "SUM(score = 4) AS score4_count, SUM(score = 5) AS score5_count "
+			+ "FROM reviews GROUP BY restaurant_id) rv ON rv.restaurant_id = r.restaurant_id "
+			+ "ORDER BY r.restaurant_id", nativeQuery = true)
+	public List<Object[]> findStoredAndActual();
+
+	// 1店舗分を一から数え直して上書きする（読み込んで書き戻すと、その間の差分更新が失われるため1行のUPDATEで行う）
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "restaurant_stats"))
+	@Query(value = "UPDATE restaurant_stats s SET "
+			+ "review_count = (SELECT COUNT(*) FROM reviews v WHERE v.restaurant_id = s.restaurant_id), "
+			+ "score_sum = (SELECT COALESCE(SUM(v.score), 0) FROM reviews v WHERE v.restaurant_id = s.restaurant_id), "
+			+ "score1_count = (SELECT COUNT(*) FROM reviews v WHERE v.restaurant_id = s.restaurant_id AND v.score = 1), "
+			+ "score2_count = (SELECT COUNT(*) FROM reviews v WHERE v.restaurant_id = s.restaurant_id AND v.score = 2), "
+			+ "score3_count = (SELECT COUNT(*) FROM reviews v WHERE v.restaurant_id = s.restaurant_id AND v.score = 3), "
+			+ "score4_count = (SELECT COUNT(*) FROM reviews v WHERE v.restaurant_id = s.restaurant_id AND v.score = 4), "
+			+ "score5_count = (SELECT COUNT(*) FROM reviews v WHERE v.restaurant_id = s.restaurant_id AND v.score = 5), "
+			+ "average_score = IF(review_count > 0, score_sum / review_count, 0), "
+			+ "favorite_count = (SELECT COUNT(*) FROM favorites f WHERE f.restaurant_id = s.restaurant_id), "
+			+ "reservation_count = (SELECT COUNT(*) FROM reservations rs WHERE rs.restaurant_id = s.restaurant_id) "
+			+ "WHERE s.restaurant_id = :restaurantId", nativeQuery = true)
+	public int recompute(@Param("restaurantId") Integer restaurantId);
+}
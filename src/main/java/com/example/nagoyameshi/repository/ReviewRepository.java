@@ -1,11 +1,15 @@
 package com.example.nagoyameshi.repository;
 
+import java.sql.Timestamp;
 import java.util.List;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.nagoyameshi.dto.RestaurantCount;
+import com.example.nagoyameshi.dto.ReviewView;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.Review;
 import com.example.nagoyameshi.entity.User;
@@ -20,9 +24,28 @@ public interface ReviewRepository extends JpaRepository<Review, Integer> {
 	//指定された店舗とユーザーに関連するレビューを取得
 	public Review findByRestaurantAndUser(Restaurant restaurant, User user);
 
+	//ユーザーがレビューを投稿した店舗のID
+	@Query("SELECT r.restaurant.id FROM Review r WHERE r.user.id = :userId")
+	public List<Integer> findRestaurantIdsByUserId(@Param("userId") Integer userId);
+
 	//指定された店舗に関連するレビューの数を数える
 	public long countByRestaurant(Restaurant restaurant);
 
-	//検索時、投稿が古い順にレビューを並び替え
-	public Page<Review> findByRestaurantOrderByCreatedAtDesc(Restaurant restaurant, Pageable pageable);
+	//レビュー一覧のキーセットページング（カーソルより古いレビューを投稿者名とまとめて取得する）
+	//(restaurant_id, created_at, id)のインデックスの順に読むため、ページが進んでも読み飛ばしが発生しない
+	@Query("SELECT new com.example.nagoyameshi.dto.ReviewView(r.id, r.score, r.content, r.createdAt, u.id, u.name) "
+			+ "FROM Review r JOIN r.user u WHERE r.restaurant.id = :restaurantId "
+			+ "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) "
+			+ "ORDER BY r.createdAt DESC, r.id DESC")
+	public List<ReviewView> findViewsByRestaurantIdBefore(@Param("restaurantId") Integer restaurantId,
+			@Param("createdAt") Timestamp createdAt, @Param("id") Integer id, Pageable pageable);
+
+	//店舗詳細に表示する最新のレビュー（投稿者名もまとめて取得する）
+	@Query("SELECT new com.example.nagoyameshi.dto.ReviewView(r.id, r.score, r.content, r.createdAt, u.id, u.name) "
+			+ "FROM Review r JOIN r.user u WHERE r.restaurant.id = :restaurantId ORDER BY r.createdAt DESC, r.id DESC")
+	public List<ReviewView> findViewsByRestaurantId(@Param("restaurantId") Integer restaurantId, Pageable pageable);
+
+	//店舗ごとのレビュー数
+	@Query("SELECT r.restaurant.id AS restaurantId, COUNT(r) AS count FROM Review r GROUP BY r.restaurant.id")
+	public List<RestaurantCount> countGroupByRestaurant();
 }
@@ -1,9 +1,15 @@
 package com.example.nagoyameshi.repository;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.nagoyameshi.entity.Role;
 
+import jakarta.persistence.QueryHint;
+
 public interface RoleRepository extends JpaRepository<Role, Integer> {
+	// 会員登録のたびに引くため、クエリキャッシュに載せる
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	public Role findByName(String name);
 }
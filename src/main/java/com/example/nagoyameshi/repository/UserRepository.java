@@ -17,6 +17,10 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
 	public Page<User> findByNameLikeOrFuriganaLike(String nameKeyword, String furiganaKeyword, Pageable pageable);
 
+	//同じユーザーのお気に入りの登録を順に行うため、ユーザーの行をロックする（ユーザーがいなければnull）
+	@Query(value = "SELECT id FROM users WHERE id = :userId FOR UPDATE", nativeQuery = true)
+	public Integer lockById(@Param("userId") Integer userId);
+
 	@Modifying
 	@Transactional
     @Query("UPDATE User u SET u.stripe_customer_id = :stripeCustomerId WHERE u.id = :userId")
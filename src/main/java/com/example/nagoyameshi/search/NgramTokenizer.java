@@ -0,0 +1,63 @@
+package com.example.nagoyameshi.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// 日本語のように単語区切りのない文字列をユニグラム・バイグラムに分解する
+public final class NgramTokenizer {
+
+    private NgramTokenizer() {
+    }
+
+    // 全角・半角の揺れと大文字・小文字を吸収する
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    // 索引用のグラム（1文字と連続する2文字）を返す
+    public static Set<String> grams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        int length = normalized.length();
+        for (int i = 0; i < length; i++) {
+            char c = normalized.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            grams.add(String.valueOf(c));
+            if (i + 1 < length && !Character.isWhitespace(normalized.charAt(i + 1))) {
+                grams.add(normalized.substring(i, i + 2));
+            }
+        }
+        return grams;
+    }
+
+    // 検索語の絞り込みに使うグラム（2文字以上ならバイグラムのみ）を返す
+    public static Set<String> queryGrams(String term) {
+        if (term.length() == 1) {
+            return Set.of(term);
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 1 < term.length(); i++) {
+            grams.add(term.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    // 空白区切りの検索語に分割する
+    public static List<String> terms(String keyword) {
+        List<String> terms = new ArrayList<>();
+        for (String term : normalize(keyword).trim().split("\\s+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.nagoyameshi.search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import com.example.nagoyameshi.valueObject.GeoPoint;
+
+// 同梱の辞書（geo/postal-codes.csv）で郵便番号・住所を緯度経度に変換する
+@Component
+public class PostalCodeGazetteer {
+    private static final String RESOURCE = "geo/postal-codes.csv";
+
+    private final Map<String, GeoPoint> postalCodes = new HashMap<>();
+    private final Map<String, GeoPoint> areas = new HashMap<>();
+
+    public PostalCodeGazetteer() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ClassPathResource(RESOURCE).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#") || line.startsWith("key,")) {
+                    continue;
+                }
+                String[] columns = line.split(",");
+                GeoPoint point = new GeoPoint(Double.parseDouble(columns[1]), Double.parseDouble(columns[2]));
+                if (columns[0].chars().allMatch(Character::isDigit)) {
+                    postalCodes.put(columns[0], point);
+                } else {
+                    areas.put(columns[0], point);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 郵便番号7桁で見つからなければ上3桁（区の代表点）で引く（見つからなければnull）
+    public GeoPoint locate(String postalCode) {
+        String digits = digitsOf(postalCode);
+        if (digits.length() != 7) {
+            return null;
+        }
+        GeoPoint point = postalCodes.get(digits);
+        return point != null ? point : postalCodes.get(digits.substring(0, 3));
+    }
+
+    // 郵便番号で引けない店舗は住所に含まれる最も長い市区名の代表点を使う
+    public GeoPoint locate(String postalCode, String address) {
+        GeoPoint point = locate(postalCode);
+        if (point != null || address == null) {
+            return point;
+        }
+        String matched = null;
+        for (String area : areas.keySet()) {
+            if (address.contains(area) && (matched == null || area.length() > matched.length())) {
+                matched = area;
+            }
+        }
+        return matched != null ? areas.get(matched) : null;
+    }
+
+    // 「〒464-0850」「４６４０８５０」などから数字だけを取り出す
+    private static String digitsOf(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder();
+        NgramTokenizer.normalize(value).chars()
+                .filter(c -> c >= '0' && c <= '9')
+                .forEach(c -> digits.append((char) c));
+        return digits.toString();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.nagoyameshi.search;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+
+// インメモリインデックスの構築元となる店舗情報を読み込む
+@Component
+public class RestaurantCatalogLoader {
+    private final RestaurantRepository restaurantRepository;
+
+    public RestaurantCatalogLoader(RestaurantRepository restaurantRepository) {
+        this.restaurantRepository = restaurantRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public List<RestaurantEntry> loadAll() {
+        List<Restaurant> restaurants = restaurantRepository.findAllWithCategories();
+        restaurantRepository.findAllWithHolidays();
+        return restaurants.stream()
+                .map(RestaurantEntry::of)
+                .collect(Collectors.toList());
+    }
+}
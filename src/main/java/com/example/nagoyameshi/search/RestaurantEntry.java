@@ -0,0 +1,100 @@
+package com.example.nagoyameshi.search;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.entity.RestaurantCategory;
+import com.example.nagoyameshi.entity.RestaurantHoliday;
+import com.example.nagoyameshi.entity.Weekday;
+
+import lombok.Getter;
+
+// インメモリ検索用に切り出した店舗情報（不変）
+@Getter
+public class RestaurantEntry {
+    private static final String WEEKDAY_CHARS = "月火水木金土日";
+
+    private final Integer id;
+    private final String name;
+    private final String postalCode;
+    private final String address;
+    private final String description;
+    private final Integer price;
+    private final long createdAt;
+    private final List<String> categoryNames;
+    private final List<String> genreNames;
+    // 定休日（「月」「火」…の1文字）
+    private final List<String> holidays;
+    private final WeeklySchedule schedule;
+
+    public RestaurantEntry(Restaurant restaurant, List<Category> categories, List<Weekday> weekdays) {
+        this.id = restaurant.getId();
+        this.name = restaurant.getName();
+        this.postalCode = restaurant.getPostalCode();
+        this.address = restaurant.getAddress();
+        this.description = restaurant.getDescription();
+        this.price = restaurant.getPrice();
+        // 登録直後はDBのデフォルト値がエンティティに反映されていないため現在時刻で代用する
+        this.createdAt = restaurant.getCreatedAt() != null
+                ? restaurant.getCreatedAt().getTime()
+                : System.currentTimeMillis();
+
+        Set<String> categoryNames = new LinkedHashSet<>();
+        Set<String> genreNames = new LinkedHashSet<>();
+        if (categories != null) {
+            for (Category category : categories) {
+                categoryNames.add(category.getName());
+                if (category.getGenre() != null) {
+                    genreNames.add(category.getGenre().getName());
+                }
+            }
+        }
+        this.categoryNames = List.copyOf(categoryNames);
+        this.genreNames = List.copyOf(genreNames);
+
+        // 定休日テーブルが未登録の店舗は旧来のregular_holidayカラムから判定する
+        Set<String> holidays = new LinkedHashSet<>();
+        if (weekdays != null && !weekdays.isEmpty()) {
+            for (Weekday weekday : weekdays) {
+                holidays.addAll(weekdayChars(weekday.getName()));
+            }
+        } else {
+            holidays.addAll(weekdayChars(restaurant.getRegularHoliday()));
+        }
+        this.holidays = List.copyOf(holidays);
+        this.schedule = WeeklySchedule.of(restaurant.getOpeningTime(), restaurant.getClosingTime(), this.holidays);
+    }
+
+    // カテゴリ・定休日が読み込み済みのエンティティから生成する
+    public static RestaurantEntry of(Restaurant restaurant) {
+        List<Category> categories = restaurant.getCategories() == null
+                ? Collections.emptyList()
+                : restaurant.getCategories().stream()
+                        .map(RestaurantCategory::getCategory)
+                        .collect(Collectors.toList());
+        List<Weekday> weekdays = restaurant.getHolidays() == null
+                ? Collections.emptyList()
+                : restaurant.getHolidays().stream()
+                        .map(RestaurantHoliday::getWeekday)
+                        .collect(Collectors.toList());
+        return new RestaurantEntry(restaurant, categories, weekdays);
+    }
+
+    // 「月曜日」「月」「月・火」などから曜日の文字だけを取り出す
+    private static List<String> weekdayChars(String value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        // 「曜日」の「日」を日曜日と誤認しないよう先に取り除く
+        return value.replace("曜日", "").chars()
+                .mapToObj(c -> String.valueOf((char) c))
+                .filter(c -> WEEKDAY_CHARS.contains(c))
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.nagoyameshi.search;
+
+import java.util.Map;
+
+import lombok.Getter;
+
+// 検索結果のジャンル・カテゴリ・価格帯ごとの件数
+@Getter
+public class RestaurantFacets {
+    private final Map<String, Integer> genreCounts;
+    private final Map<String, Integer> categoryCounts;
+    // 「○円以内」の上限価格ごとの累積件数
+    private final Map<Integer, Integer> priceCounts;
+
+    public RestaurantFacets(Map<String, Integer> genreCounts, Map<String, Integer> categoryCounts,
+            Map<Integer, Integer> priceCounts) {
+        this.genreCounts = genreCounts;
+        this.categoryCounts = categoryCounts;
+        this.priceCounts = priceCounts;
+    }
+
+    public int genreCount(String genre) {
+        return genreCounts.getOrDefault(genre, 0);
+    }
+
+    public int categoryCount(String category) {
+        return categoryCounts.getOrDefault(category, 0);
+    }
+
+    // 最も高い価格帯を超える上限が指定された場合は全件
+    public int priceCount(Integer maxPrice) {
+        Integer count = priceCounts.get(maxPrice);
+        if (count != null) {
+            return count;
+        }
+        return priceCounts.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+}
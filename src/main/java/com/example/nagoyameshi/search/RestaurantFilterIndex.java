@@ -0,0 +1,344 @@
+package com.example.nagoyameshi.search;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.nagoyameshi.event.RestaurantCatalogReloadEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.valueObject.RestaurantCursor;
+
+// カテゴリ・ジャンル・価格帯・定休日・営業時間帯ごとのビットマップと並び順ごとの順列を持つ絞り込みエンジン
+@Component
+public class RestaurantFilterIndex {
+    // 価格帯の幅（検索フォームの「○円以内」に合わせて1,000円刻み）
+    public static final int PRICE_BAND_WIDTH = 1000;
+
+    private final RestaurantCatalogLoader restaurantCatalogLoader;
+    private final RestaurantSearchIndex restaurantSearchIndex;
+    private final RestaurantStatsIndex restaurantStatsIndex;
+    private final Map<Integer, RestaurantEntry> entries = new HashMap<>();
+    // 読み取りはロックなしでスナップショットを参照し、更新時に作り直して差し替える
+    private volatile Snapshot snapshot;
+
+    public RestaurantFilterIndex(RestaurantCatalogLoader restaurantCatalogLoader,
+            RestaurantSearchIndex restaurantSearchIndex, RestaurantStatsIndex restaurantStatsIndex) {
+        this.restaurantCatalogLoader = restaurantCatalogLoader;
+        this.restaurantSearchIndex = restaurantSearchIndex;
+        this.restaurantStatsIndex = restaurantStatsIndex;
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, RestaurantCatalogReloadEvent.class })
+    public synchronized void rebuild() {
+        entries.clear();
+        for (RestaurantEntry entry : restaurantCatalogLoader.loadAll()) {
+            entries.put(entry.getId(), entry);
+        }
+        snapshot = new Snapshot(entries.values());
+    }
+
+    // 店舗の登録・更新・削除をコミット後に反映する（件数が少ないため全体を作り直す）
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRestaurantChange(RestaurantChangeEvent event) {
+        if (snapshot == null) {
+            return;
+        }
+        if (event.isDeleted()) {
+            entries.remove(event.getRestaurantId());
+        } else {
+            entries.put(event.getRestaurantId(), event.getEntry());
+        }
+        snapshot = new Snapshot(entries.values());
+    }
+
+    public boolean isReady() {
+        return snapshot != null && restaurantSearchIndex.isReady();
+    }
+
+    // 条件に一致する店舗を並び順に従ってoffset件目からlimit件返す
+    public RestaurantFilterResult page(RestaurantQuery query, String order, long offset, int limit) {
+        return search(query, order, null, offset, limit);
+    }
+
+    // 条件に一致する店舗のうちカーソルより後ろをlimit件返す
+    public RestaurantFilterResult seek(RestaurantQuery query, String order, RestaurantCursor after, int limit) {
+        return search(query, order, after, 0, limit);
+    }
+
+    // 店舗が指定した15分枠に営業しているか（索引の準備前や営業時間が未登録の店舗はfalse）
+    public boolean isOpen(Integer restaurantId, int openSlot) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return false;
+        }
+        Integer slot = current.slots.get(restaurantId);
+        return slot != null && current.openAt[Math.floorMod(openSlot, current.openAt.length)].get(slot);
+    }
+
+    // 条件に一致するかどうかを店舗IDで判定する（距離順など、この索引以外で並べる場合に使う）
+    public RestaurantMatcher matcher(RestaurantQuery query) {
+        Snapshot current = snapshot;
+        Map<Integer, Integer> scores = query.hasKeyword() ? restaurantSearchIndex.scores(query.getKeyword()) : null;
+        return new RestaurantMatcher(current.slots, current.match(query, scores));
+    }
+
+    private RestaurantFilterResult search(RestaurantQuery query, String order, RestaurantCursor after,
+            long offset, int limit) {
+        Snapshot current = snapshot;
+        Map<Integer, Integer> scores = query.hasKeyword() ? restaurantSearchIndex.scores(query.getKeyword()) : null;
+        BitSet matched = current.match(query, scores);
+
+        String sort = "relevance".equals(order) && scores == null ? null : order;
+        Comparator<RestaurantCursor> comparator = comparator(sort);
+        // 関連度は検索語のスコア、評価・件数はrestaurant_statsの値を並び替えキーにする
+        ToLongFunction<Integer> keys = null;
+        if ("relevance".equals(sort)) {
+            keys = id -> scores.get(id);
+        } else if (RestaurantStatsIndex.isSortOrder(sort)) {
+            String statsOrder = sort;
+            keys = id -> restaurantStatsIndex.sortKey(statsOrder, id);
+        }
+
+        List<RestaurantCursor> hits = new ArrayList<>();
+        long skipped = 0;
+        for (int slot : current.ordered(matched, sort, keys, comparator)) {
+            if (hits.size() >= limit) {
+                break;
+            }
+            if (!matched.get(slot)) {
+                continue;
+            }
+            RestaurantCursor position = current.position(slot, sort, keys);
+            if (after != null && comparator.compare(position, after) <= 0) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            hits.add(position);
+        }
+        return new RestaurantFilterResult(hits, matched.cardinality());
+    }
+
+    // 絞り込みと同じビットマップとの積集合の件数で、ジャンル・カテゴリ・価格帯ごとの件数を数える
+    // （そのファセット自身の条件は外して数え、選択を切り替えた場合の件数を表示できるようにする）
+    public RestaurantFacets facets(RestaurantQuery query) {
+        Snapshot current = snapshot;
+        Map<Integer, Integer> scores = query.hasKeyword() ? restaurantSearchIndex.scores(query.getKeyword()) : null;
+
+        BitSet withoutCategories = current.match(query.withoutCategories(), scores);
+        BitSet withoutMaxPrice = current.match(query.withoutMaxPrice(), scores);
+
+        return new RestaurantFacets(
+                countEach(current.genres, withoutCategories),
+                countEach(current.categories, withoutCategories),
+                current.cumulativePriceCounts(withoutMaxPrice));
+    }
+
+    private static Map<String, Integer> countEach(Map<String, BitSet> facet, BitSet matched) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, BitSet> entry : facet.entrySet()) {
+            BitSet intersection = (BitSet) entry.getValue().clone();
+            intersection.and(matched);
+            counts.put(entry.getKey(), intersection.cardinality());
+        }
+        return counts;
+    }
+
+    // 価格の安い順は(価格, ID)の昇順、それ以外は(キー, ID)の降順
+    private static Comparator<RestaurantCursor> comparator(String order) {
+        Comparator<RestaurantCursor> comparator = Comparator.comparingLong(RestaurantCursor::getKey)
+                .thenComparingInt(RestaurantCursor::getId);
+        return "priceAsc".equals(order) ? comparator : comparator.reversed();
+    }
+
+    static int priceBandOf(int price) {
+        return (price + PRICE_BAND_WIDTH - 1) / PRICE_BAND_WIDTH;
+    }
+
+    private static class Snapshot {
+        private final int[] ids;
+        private final int[] prices;
+        private final long[] createdAts;
+        private final Map<Integer, Integer> slots = new HashMap<>();
+        private final BitSet all = new BitSet();
+        private final Map<String, BitSet> categories = new HashMap<>();
+        private final Map<String, BitSet> genres = new HashMap<>();
+        private final Map<String, BitSet> holidays = new HashMap<>();
+        private final TreeMap<Integer, BitSet> priceBands = new TreeMap<>();
+        // 週内の15分枠ごとに営業中の店舗のビットマップ
+        private final BitSet[] openAt = new BitSet[WeeklySchedule.SLOTS_PER_WEEK];
+        private final int[] byCreatedAtDesc;
+        private final int[] byPriceAsc;
+
+        private Snapshot(Collection<RestaurantEntry> entries) {
+            List<RestaurantEntry> sorted = new ArrayList<>(entries);
+            sorted.sort(Comparator.comparing(RestaurantEntry::getId));
+
+            int size = sorted.size();
+            for (int slot = 0; slot < openAt.length; slot++) {
+                openAt[slot] = new BitSet(size);
+            }
+            ids = new int[size];
+            prices = new int[size];
+            createdAts = new long[size];
+            for (int slot = 0; slot < size; slot++) {
+                RestaurantEntry entry = sorted.get(slot);
+                ids[slot] = entry.getId();
+                prices[slot] = entry.getPrice() != null ? entry.getPrice() : 0;
+                createdAts[slot] = entry.getCreatedAt();
+                slots.put(entry.getId(), slot);
+                all.set(slot);
+
+                for (String name : entry.getCategoryNames()) {
+                    categories.computeIfAbsent(name, key -> new BitSet(size)).set(slot);
+                }
+                for (String name : entry.getGenreNames()) {
+                    genres.computeIfAbsent(name, key -> new BitSet(size)).set(slot);
+                }
+                for (String weekday : entry.getHolidays()) {
+                    holidays.computeIfAbsent(weekday, key -> new BitSet(size)).set(slot);
+                }
+                priceBands.computeIfAbsent(priceBandOf(prices[slot]), key -> new BitSet(size)).set(slot);
+                BitSet open = entry.getSchedule().openSlots();
+                for (int time = open.nextSetBit(0); time >= 0; time = open.nextSetBit(time + 1)) {
+                    openAt[time].set(slot);
+                }
+            }
+
+            byCreatedAtDesc = permutation(comparator(null), null);
+            byPriceAsc = permutation(comparator("priceAsc"), "priceAsc");
+        }
+
+        private int[] permutation(Comparator<RestaurantCursor> comparator, String order) {
+            List<Integer> permutation = new ArrayList<>(ids.length);
+            for (int slot = 0; slot < ids.length; slot++) {
+                permutation.add(slot);
+            }
+            permutation.sort((a, b) -> comparator.compare(position(a, order, null), position(b, order, null)));
+            return permutation.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private RestaurantCursor position(int slot, String order, ToLongFunction<Integer> keys) {
+            if ("priceAsc".equals(order)) {
+                return new RestaurantCursor(prices[slot], ids[slot]);
+            } else if (keys != null) {
+                return new RestaurantCursor(keys.applyAsLong(ids[slot]), ids[slot]);
+            } else {
+                return new RestaurantCursor(createdAts[slot], ids[slot]);
+            }
+        }
+
+        // 各ファセットのビットマップをAND（カテゴリ同士はOR）して一致する店舗を求める
+        private BitSet match(RestaurantQuery query, Map<Integer, Integer> scores) {
+            BitSet matched = (BitSet) all.clone();
+
+            if (scores != null) {
+                BitSet keywordHits = new BitSet(ids.length);
+                for (Integer id : scores.keySet()) {
+                    Integer slot = slots.get(id);
+                    if (slot != null) {
+                        keywordHits.set(slot);
+                    }
+                }
+                matched.and(keywordHits);
+            }
+
+            if (!query.getCategories().isEmpty()) {
+                BitSet anyCategory = new BitSet(ids.length);
+                for (String category : query.getCategories()) {
+                    BitSet bits = categories.get(category);
+                    if (bits != null) {
+                        anyCategory.or(bits);
+                    }
+                }
+                matched.and(anyCategory);
+            }
+
+            if (query.getGenre() != null) {
+                matched.and(genres.getOrDefault(query.getGenre(), new BitSet()));
+            }
+
+            if (query.getMaxPrice() != null) {
+                matched.and(priceAtMost(query.getMaxPrice()));
+            }
+
+            if (query.getWeekday() != null) {
+                BitSet closed = holidays.get(query.getWeekday());
+                if (closed != null) {
+                    matched.andNot(closed);
+                }
+            }
+
+            if (query.getOpenSlot() != null) {
+                matched.and(openAt[Math.floorMod(query.getOpenSlot(), openAt.length)]);
+            }
+
+            return matched;
+        }
+
+        private BitSet priceAtMost(int maxPrice) {
+            int maxBand = priceBandOf(maxPrice);
+            BitSet result = new BitSet(ids.length);
+            for (BitSet bits : priceBands.headMap(maxBand, true).values()) {
+                result.or(bits);
+            }
+            // 上限が価格帯の境界でない場合、最後の価格帯だけは1件ずつ確認する
+            BitSet boundary = priceBands.get(maxBand);
+            if (boundary != null && maxPrice % PRICE_BAND_WIDTH != 0) {
+                for (int slot = boundary.nextSetBit(0); slot >= 0; slot = boundary.nextSetBit(slot + 1)) {
+                    if (prices[slot] > maxPrice) {
+                        result.clear(slot);
+                    }
+                }
+            }
+            return result;
+        }
+
+        // 価格帯ごとの件数を累積し、「○円以内」の上限価格ごとの件数にする
+        private Map<Integer, Integer> cumulativePriceCounts(BitSet matched) {
+            Map<Integer, Integer> counts = new HashMap<>();
+            if (priceBands.isEmpty()) {
+                return counts;
+            }
+            int total = 0;
+            // 店舗のない価格帯も直前までの累積件数で埋める
+            for (int band = 0; band <= priceBands.lastKey(); band++) {
+                BitSet bits = priceBands.get(band);
+                if (bits != null) {
+                    BitSet intersection = (BitSet) bits.clone();
+                    intersection.and(matched);
+                    total += intersection.cardinality();
+                }
+                counts.put(band * PRICE_BAND_WIDTH, total);
+            }
+            return counts;
+        }
+
+        // 一致件数が少なければその分だけ並び替え、多ければ事前に並べた順列をそのまま返す（呼び出し側で一致を確認する）
+        // 検索のたびに変わるキー（関連度・評価・件数）の場合は常に並び替える
+        private int[] ordered(BitSet matched, String order, ToLongFunction<Integer> keys,
+                Comparator<RestaurantCursor> comparator) {
+            if (keys != null || matched.cardinality() * 16 < ids.length) {
+                return matched.stream()
+                        .boxed()
+                        .sorted((a, b) -> comparator.compare(position(a, order, keys), position(b, order, keys)))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+            return "priceAsc".equals(order) ? byPriceAsc : byCreatedAtDesc;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.nagoyameshi.search;
+
+import java.util.List;
+
+import com.example.nagoyameshi.valueObject.RestaurantCursor;
+
+import lombok.Getter;
+
+// 絞り込み結果（表示分の(並び替えキー, 店舗ID)と条件に一致した総件数）
+@Getter
+public class RestaurantFilterResult {
+    private final List<RestaurantCursor> hits;
+    private final int total;
+
+    public RestaurantFilterResult(List<RestaurantCursor> hits, int total) {
+        this.hits = hits;
+        this.total = total;
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.nagoyameshi.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.nagoyameshi.event.RestaurantCatalogReloadEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.valueObject.GeoPoint;
+import com.example.nagoyameshi.valueObject.RestaurantCursor;
+
+// 店舗の位置を一定間隔の格子に振り分け、近い順に取り出すための索引
+@Component
+public class RestaurantGeoIndex {
+    // 格子の幅（度、名古屋付近でおよそ1km）
+    private static final double CELL_DEGREES = 0.01;
+    // 格子を広げて探す際に調べる格子数の上限（索引から遠い起点では超えるため、全件の走査に切り替える）
+    private static final long MAX_CELL_LOOKUPS = 40_000;
+    private static final Comparator<RestaurantCursor> NEAREST = Comparator.comparingLong(RestaurantCursor::getKey)
+            .thenComparingInt(RestaurantCursor::getId);
+
+    private final RestaurantCatalogLoader restaurantCatalogLoader;
+    private final PostalCodeGazetteer postalCodeGazetteer;
+
+    // 更新用の店舗ごとの位置（更新のたびにここからスナップショットを作り直す）
+    private final Map<Integer, GeoPoint> points = new HashMap<>();
+    // 読み取りはロックなしでスナップショットを参照し、更新時に作り直して差し替える
+    private volatile Snapshot snapshot;
+
+    public RestaurantGeoIndex(RestaurantCatalogLoader restaurantCatalogLoader,
+            PostalCodeGazetteer postalCodeGazetteer) {
+        this.restaurantCatalogLoader = restaurantCatalogLoader;
+        this.postalCodeGazetteer = postalCodeGazetteer;
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, RestaurantCatalogReloadEvent.class })
+    public synchronized void rebuild() {
+        points.clear();
+        for (RestaurantEntry entry : restaurantCatalogLoader.loadAll()) {
+            add(entry);
+        }
+        snapshot = new Snapshot(points);
+    }
+
+    // 店舗の登録・更新・削除をコミット後に反映する
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRestaurantChange(RestaurantChangeEvent event) {
+        if (snapshot == null) {
+            return;
+        }
+        points.remove(event.getRestaurantId());
+        if (!event.isDeleted()) {
+            add(event.getEntry());
+        }
+        snapshot = new Snapshot(points);
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public GeoPoint locationOf(Integer restaurantId) {
+        Snapshot current = snapshot;
+        return current != null ? current.points.get(restaurantId) : null;
+    }
+
+    // 条件に一致する店舗を起点から近い順に返す（キーは距離のメートル、afterより後ろのoffset件目からlimit件）
+    // 店舗のある範囲に届く周から外側へ1周ずつ広げ、未探索の格子にある店舗より確実に近いものから確定させる
+    // 調べる格子が多すぎる場合（範囲から遠い起点など）は、全店舗の距離を求めて上位だけを残す
+    // （一致する総件数は絞り込みエンジンのビットマップから求めるため、ここでは数えない）
+    public List<RestaurantCursor> nearest(GeoPoint origin, IntPredicate filter, RestaurantCursor after,
+            long offset, int limit) {
+        Snapshot current = snapshot;
+        if (current == null || current.points.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        long need = offset + limit;
+
+        long row = rowOf(origin.getLatitude());
+        long column = columnOf(origin.getLongitude());
+        double cellMeters = cellMeters(origin);
+        long firstRing = Math.max(0, Math.max(Math.max(current.minRow - row, row - current.maxRow),
+                Math.max(current.minColumn - column, column - current.maxColumn)));
+        long lastRing = Math.max(Math.max(Math.abs(row - current.minRow), Math.abs(row - current.maxRow)),
+                Math.max(Math.abs(column - current.minColumn), Math.abs(column - current.maxColumn)));
+
+        PriorityQueue<RestaurantCursor> pending = new PriorityQueue<>(NEAREST);
+        List<RestaurantCursor> hits = new ArrayList<>();
+        long skipped = 0;
+        int visited = 0;
+        long lookups = 0;
+        for (long ring = firstRing; ring <= lastRing && hits.size() < limit; ring++) {
+            lookups += ring == 0 ? 1 : 8 * ring;
+            if (lookups > MAX_CELL_LOOKUPS) {
+                return scan(current, origin, filter, after, offset, limit);
+            }
+            for (long cell : ringOf(row, column, ring)) {
+                int[] ids = current.cells.get(cell);
+                if (ids == null) {
+                    continue;
+                }
+                for (int id : ids) {
+                    visited++;
+                    if (filter.test(id)) {
+                        pending.add(new RestaurantCursor(Math.round(origin.distanceTo(current.points.get(id))), id));
+                    }
+                }
+            }
+
+            // この周より外側の店舗は少なくともring個分の格子だけ離れている
+            double reach = visited == current.points.size() || ring == lastRing
+                    ? Double.MAX_VALUE
+                    : ring * cellMeters;
+            while (!pending.isEmpty() && pending.peek().getKey() <= reach && hits.size() < limit) {
+                RestaurantCursor hit = pending.poll();
+                if (after != null && NEAREST.compare(hit, after) <= 0) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                hits.add(hit);
+            }
+            if (skipped + hits.size() >= need || visited == current.points.size() && pending.isEmpty()) {
+                break;
+            }
+        }
+        return hits;
+    }
+
+    // 全店舗の距離を求め、afterより後ろの近いoffset + limit件だけをヒープに残す
+    private static List<RestaurantCursor> scan(Snapshot current, GeoPoint origin, IntPredicate filter,
+            RestaurantCursor after, long offset, int limit) {
+        long need = offset + limit;
+        PriorityQueue<RestaurantCursor> nearest = new PriorityQueue<>(NEAREST.reversed());
+        for (Map.Entry<Integer, GeoPoint> point : current.points.entrySet()) {
+            if (!filter.test(point.getKey())) {
+                continue;
+            }
+            RestaurantCursor hit = new RestaurantCursor(Math.round(origin.distanceTo(point.getValue())),
+                    point.getKey());
+            if (after != null && NEAREST.compare(hit, after) <= 0) {
+                continue;
+            }
+            nearest.add(hit);
+            if (nearest.size() > need) {
+                nearest.poll();
+            }
+        }
+        List<RestaurantCursor> sorted = new ArrayList<>(nearest);
+        sorted.sort(NEAREST);
+        return offset < sorted.size()
+                ? new ArrayList<>(sorted.subList((int) offset, sorted.size()))
+                : new ArrayList<>();
+    }
+
+    private void add(RestaurantEntry entry) {
+        GeoPoint point = postalCodeGazetteer.locate(entry.getPostalCode(), entry.getAddress());
+        if (point != null) {
+            points.put(entry.getId(), point);
+        }
+    }
+
+    // 中心の格子からring個離れた外周の格子
+    private static List<Long> ringOf(long row, long column, long ring) {
+        List<Long> ringCells = new ArrayList<>();
+        if (ring == 0) {
+            ringCells.add(key(row, column));
+            return ringCells;
+        }
+        for (long c = column - ring; c <= column + ring; c++) {
+            ringCells.add(key(row - ring, c));
+            ringCells.add(key(row + ring, c));
+        }
+        for (long r = row - ring + 1; r <= row + ring - 1; r++) {
+            ringCells.add(key(r, column - ring));
+            ringCells.add(key(r, column + ring));
+        }
+        return ringCells;
+    }
+
+    // 格子1つ分の短い辺の長さ（メートル、経線方向は緯度が高いほど短くなるため少し北側で見積もる）
+    private static double cellMeters(GeoPoint origin) {
+        double latitude = Math.min(89, Math.abs(origin.getLatitude()) + 1);
+        return CELL_DEGREES * 110_000 * Math.cos(Math.toRadians(latitude));
+    }
+
+    private static long rowOf(double latitude) {
+        return (long) Math.floor(latitude / CELL_DEGREES);
+    }
+
+    private static long columnOf(double longitude) {
+        return (long) Math.floor(longitude / CELL_DEGREES);
+    }
+
+    // 上位32ビットを行、下位32ビットを列にする（行・列は緯度経度の範囲でintに収まるため重ならない）
+    private static long key(long row, long column) {
+        return (row << 32) | (column & 0xFFFF_FFFFL);
+    }
+
+    // 位置と格子の不変なスナップショット
+    private static class Snapshot {
+        private final Map<Integer, GeoPoint> points;
+        private final Map<Long, int[]> cells = new HashMap<>();
+        // 店舗のある格子を囲む範囲
+        private long minRow = Long.MAX_VALUE;
+        private long maxRow = Long.MIN_VALUE;
+        private long minColumn = Long.MAX_VALUE;
+        private long maxColumn = Long.MIN_VALUE;
+
+        private Snapshot(Map<Integer, GeoPoint> points) {
+            this.points = Map.copyOf(points);
+            Map<Long, List<Integer>> ids = new HashMap<>();
+            for (Map.Entry<Integer, GeoPoint> point : this.points.entrySet()) {
+                long row = rowOf(point.getValue().getLatitude());
+                long column = columnOf(point.getValue().getLongitude());
+                ids.computeIfAbsent(key(row, column), key -> new ArrayList<>()).add(point.getKey());
+                minRow = Math.min(minRow, row);
+                maxRow = Math.max(maxRow, row);
+                minColumn = Math.min(minColumn, column);
+                maxColumn = Math.max(maxColumn, column);
+            }
+            for (Map.Entry<Long, List<Integer>> cell : ids.entrySet()) {
+                cells.put(cell.getKey(), cell.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.nagoyameshi.search;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+// 絞り込み条件に一致するかを店舗IDで判定する（距離順など、絞り込みエンジン以外で並べる場合に使う）
+// 一致する件数は絞り込みで求めたビットマップから数える
+public class RestaurantMatcher implements IntPredicate {
+    private final Map<Integer, Integer> slots;
+    private final BitSet matched;
+
+    RestaurantMatcher(Map<Integer, Integer> slots, BitSet matched) {
+        this.slots = slots;
+        this.matched = matched;
+    }
+
+    @Override
+    public boolean test(int id) {
+        Integer slot = slots.get(id);
+        return slot != null && matched.get(slot);
+    }
+
+    public int count() {
+        return matched.cardinality();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.nagoyameshi.search;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.example.nagoyameshi.valueObject.GeoPoint;
+
+import lombok.Getter;
+
+// 店舗一覧の絞り込み条件（指定されたものをすべてAND、カテゴリ同士はOR）
+@Getter
+public class RestaurantQuery {
+    private final String keyword;
+    private final List<String> categories;
+    private final String genre;
+    private final Integer maxPrice;
+    // 営業している曜日（「月」「火」…）
+    private final String weekday;
+    // 営業している時間帯（週内の15分枠の番号、WeeklySchedule.slotOf参照）
+    private final Integer openSlot;
+    // 距離順に並べる場合の起点
+    private final GeoPoint origin;
+
+    public RestaurantQuery(String keyword, List<String> categories, String genre, Integer maxPrice, String weekday,
+            Integer openSlot, GeoPoint origin) {
+        this.keyword = emptyToNull(keyword);
+        this.categories = categories == null
+                ? Collections.emptyList()
+                : categories.stream()
+                        .filter(category -> category != null && !category.isEmpty())
+                        .distinct()
+                        .collect(Collectors.toUnmodifiableList());
+        this.genre = emptyToNull(genre);
+        this.maxPrice = maxPrice;
+        this.weekday = emptyToNull(weekday);
+        this.openSlot = openSlot;
+        this.origin = origin;
+    }
+
+    // ファセット件数の集計用に、カテゴリ・ジャンルの条件を外した条件を返す
+    public RestaurantQuery withoutCategories() {
+        return new RestaurantQuery(keyword, null, null, maxPrice, weekday, openSlot, origin);
+    }
+
+    // ファセット件数の集計用に、価格の条件を外した条件を返す
+    public RestaurantQuery withoutMaxPrice() {
+        return new RestaurantQuery(keyword, categories, genre, null, weekday, openSlot, origin);
+    }
+
+    // 起点を検索結果キャッシュの単位に丸めた条件を返す（起点がなければそのまま）
+    public RestaurantQuery withRoundedOrigin() {
+        return origin != null
+                ? new RestaurantQuery(keyword, categories, genre, maxPrice, weekday, openSlot, origin.rounded())
+                : this;
+    }
+
+    public boolean hasKeyword() {
+        return keyword != null;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
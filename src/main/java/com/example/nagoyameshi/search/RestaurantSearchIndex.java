@@ -0,0 +1,206 @@
+package com.example.nagoyameshi.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.nagoyameshi.event.RestaurantCatalogReloadEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+
+// 店舗名・住所・説明・カテゴリ名のN-gram転置インデックス
+@Component
+public class RestaurantSearchIndex {
+    private static final int NAME_WEIGHT = 4;
+    private static final int CATEGORY_WEIGHT = 3;
+    private static final int ADDRESS_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final RestaurantCatalogLoader restaurantCatalogLoader;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Set<Integer>> postings = new HashMap<>();
+    private Map<Integer, Document> documents = new HashMap<>();
+    private volatile boolean ready = false;
+
+    public RestaurantSearchIndex(RestaurantCatalogLoader restaurantCatalogLoader) {
+        this.restaurantCatalogLoader = restaurantCatalogLoader;
+    }
+
+    // 起動時に全店舗からインデックスを構築する
+    @EventListener({ ApplicationReadyEvent.class, RestaurantCatalogReloadEvent.class })
+    public void rebuild() {
+        Map<String, Set<Integer>> newPostings = new HashMap<>();
+        Map<Integer, Document> newDocuments = new HashMap<>();
+        for (RestaurantEntry entry : restaurantCatalogLoader.loadAll()) {
+            Document document = new Document(entry);
+            newDocuments.put(document.id, document);
+            addPostings(newPostings, document);
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            documents = newDocuments;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 店舗の登録・更新・削除をコミット後に反映する
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChange(RestaurantChangeEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getRestaurantId());
+        } else {
+            put(event.getEntry());
+        }
+    }
+
+    public void put(RestaurantEntry entry) {
+        Document document = new Document(entry);
+        lock.writeLock().lock();
+        try {
+            removePostings(documents.remove(document.id));
+            documents.put(document.id, document);
+            addPostings(postings, document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer restaurantId) {
+        lock.writeLock().lock();
+        try {
+            removePostings(documents.remove(restaurantId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // キーワードに部分一致する店舗IDと関連度スコアを返す（並び替え・絞り込みはRestaurantFilterIndexで行う）
+    public Map<Integer, Integer> scores(String keyword) {
+        List<String> terms = NgramTokenizer.terms(keyword);
+        Map<Integer, Integer> scores = new HashMap<>();
+        if (terms.isEmpty()) {
+            return scores;
+        }
+
+        lock.readLock().lock();
+        try {
+            for (Integer id : candidates(terms)) {
+                int score = documents.get(id).score(terms);
+                if (score > 0) {
+                    scores.put(id, score);
+                }
+            }
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // すべての検索語のグラムを含む候補を転置リストの積集合で求める
+    private Set<Integer> candidates(List<String> terms) {
+        List<Set<Integer>> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (String gram : NgramTokenizer.queryGrams(term)) {
+                Set<Integer> posting = postings.get(gram);
+                if (posting == null) {
+                    return Set.of();
+                }
+                lists.add(posting);
+            }
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Integer> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static void addPostings(Map<String, Set<Integer>> postings, Document document) {
+        for (String gram : document.grams) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(document.id);
+        }
+    }
+
+    private void removePostings(Document document) {
+        if (document == null) {
+            return;
+        }
+        for (String gram : document.grams) {
+            Set<Integer> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(document.id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static class Document {
+        private final int id;
+        private final String name;
+        private final String categories;
+        private final String address;
+        private final String description;
+        private final Set<String> grams = new HashSet<>();
+
+        private Document(RestaurantEntry entry) {
+            this.id = entry.getId();
+            this.name = NgramTokenizer.normalize(entry.getName());
+            this.categories = NgramTokenizer.normalize(String.join("\n", entry.getCategoryNames()));
+            this.address = NgramTokenizer.normalize(entry.getAddress());
+            this.description = NgramTokenizer.normalize(entry.getDescription());
+
+            grams.addAll(NgramTokenizer.grams(name));
+            grams.addAll(NgramTokenizer.grams(categories));
+            grams.addAll(NgramTokenizer.grams(address));
+            grams.addAll(NgramTokenizer.grams(description));
+        }
+
+        // グラムの一致だけでは連続性が保証されないため、部分一致を確認しつつスコアを付ける
+        private int score(List<String> terms) {
+            int score = 0;
+            for (String term : terms) {
+                int termScore = 0;
+                if (name.contains(term)) {
+                    termScore += name.startsWith(term) ? NAME_WEIGHT * 2 : NAME_WEIGHT;
+                }
+                if (categories.contains(term)) {
+                    termScore += CATEGORY_WEIGHT;
+                }
+                if (address.contains(term)) {
+                    termScore += ADDRESS_WEIGHT;
+                }
+                if (description.contains(term)) {
+                    termScore += DESCRIPTION_WEIGHT;
+                }
+                if (termScore == 0) {
+                    return 0;
+                }
+                score += termScore;
+            }
+            return score;
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.example.nagoyameshi.search;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.nagoyameshi.entity.RestaurantStats;
+import com.example.nagoyameshi.event.RestaurantCatalogReloadEvent;
+import com.example.nagoyameshi.event.RestaurantStatsChangeEvent;
+import com.example.nagoyameshi.repository.RestaurantStatsRepository;
+
+// restaurant_statsのメモリ上の写し（評価・レビュー数・お気に入り数での並び替えに使う）
+@Component
+public class RestaurantStatsIndex {
+    public static final String RATING_DESC = "ratingDesc";
+    public static final String REVIEW_COUNT_DESC = "reviewCountDesc";
+    public static final String FAVORITE_COUNT_DESC = "favoriteCountDesc";
+
+    private final RestaurantStatsRepository restaurantStatsRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final Map<Integer, RestaurantStats> stats = new ConcurrentHashMap<>();
+    // 集計が変わるたびに増える版数（並び替え結果のキャッシュのキーに含める）
+    private final AtomicLong version = new AtomicLong();
+    // 店舗ごとに集計を読み直した時刻（同じ店舗では必ず増えるようにする。詳細ページのETagに使う）
+    private final Map<Integer, Long> changedAt = new ConcurrentHashMap<>();
+    private volatile long rebuiltAt = System.currentTimeMillis();
+    private volatile long lastModified = rebuiltAt;
+
+    public RestaurantStatsIndex(RestaurantStatsRepository restaurantStatsRepository,
+            ApplicationEventPublisher applicationEventPublisher) {
+        this.restaurantStatsRepository = restaurantStatsRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, RestaurantCatalogReloadEvent.class })
+    public void rebuild() {
+        for (RestaurantStats row : restaurantStatsRepository.findAll()) {
+            stats.put(row.getRestaurantId(), row);
+        }
+        version.incrementAndGet();
+        rebuiltAt = System.currentTimeMillis();
+        lastModified = rebuiltAt;
+    }
+
+    // 集計を更新したトランザクションのコミット後に1行だけ読み直す（読み直した店舗をイベントで通知する）
+    public void refresh(Integer restaurantId) {
+        restaurantStatsRepository.findById(restaurantId)
+                .ifPresentOrElse(row -> stats.put(restaurantId, row), () -> stats.remove(restaurantId));
+        version.incrementAndGet();
+        long now = System.currentTimeMillis();
+        changedAt.merge(restaurantId, now, (previous, current) -> Math.max(previous + 1, current));
+        lastModified = now;
+        applicationEventPublisher.publishEvent(new RestaurantStatsChangeEvent(this, restaurantId));
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    // いずれかの店舗の集計が最後に変わった時刻
+    public long lastModified() {
+        return lastModified;
+    }
+
+    // 指定した店舗の集計が最後に変わった時刻（読み込み直後は読み込んだ時刻）
+    public long changedAt(Integer restaurantId) {
+        return Math.max(changedAt.getOrDefault(restaurantId, 0L), rebuiltAt);
+    }
+
+    public RestaurantStats get(Integer restaurantId) {
+        return stats.get(restaurantId);
+    }
+
+    public static boolean isSortOrder(String order) {
+        return RATING_DESC.equals(order) || REVIEW_COUNT_DESC.equals(order) || FAVORITE_COUNT_DESC.equals(order);
+    }
+
+    // 並び替えキー（平均点は100倍した整数、集計行のない店舗は0）
+    public long sortKey(String order, Integer restaurantId) {
+        RestaurantStats row = stats.get(restaurantId);
+        if (row == null) {
+            return 0;
+        }
+        if (RATING_DESC.equals(order)) {
+            return row.getAverageScore().movePointRight(2).longValue();
+        } else if (REVIEW_COUNT_DESC.equals(order)) {
+            return row.getReviewCount();
+        } else {
+            return row.getFavoriteCount();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.nagoyameshi.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.nagoyameshi.cache.CatalogVersion;
+import com.example.nagoyameshi.dto.RestaurantCount;
+import com.example.nagoyameshi.entity.RestaurantStats;
+import com.example.nagoyameshi.event.RestaurantCatalogReloadEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.event.RestaurantStatsChangeEvent;
+import com.example.nagoyameshi.repository.FavoriteRepository;
+import com.example.nagoyameshi.repository.ReviewRepository;
+import com.example.nagoyameshi.service.GenreService;
+
+// 店舗名・エリア（区・町名・駅）・カテゴリ・ジャンルの入力補完用インデックス
+@Component
+public class RestaurantSuggestIndex {
+    // 人気順（同じなら短い順・文字列順）
+    private static final Comparator<Suggestion> RANKING = Comparator.comparingLong(Suggestion::getPopularity)
+            .reversed()
+            .thenComparingInt((Suggestion suggestion) -> suggestion.getText().length())
+            .thenComparing(Suggestion::getText);
+    // 「名古屋市中区栄3-15-7」の「中区」
+    private static final Pattern WARD = Pattern.compile("市([^市区\\s]{1,4}区)");
+    // 「中区栄3-15-7」の「栄」
+    private static final Pattern TOWN = Pattern.compile("区([^0-9０-９\\-－ー\\s]{1,6})");
+    // 「名古屋駅から徒歩5分」の「名古屋駅」
+    private static final Pattern STATION = Pattern.compile("[\\p{IsHan}\\p{IsKatakana}ー]{1,8}駅");
+
+    private final RestaurantCatalogLoader restaurantCatalogLoader;
+    private final GenreService genreService;
+    private final ReviewRepository reviewRepository;
+    private final FavoriteRepository favoriteRepository;
+    private final CatalogVersion catalogVersion;
+    private final RestaurantStatsIndex restaurantStatsIndex;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private SuggestionTrie trie = new SuggestionTrie();
+    private Map<String, Suggestion> suggestions = new HashMap<>();
+    // 店舗ごとに登録したエリア・カテゴリ・ジャンルの候補ID（更新時に件数を減らすため）
+    private Map<Integer, Set<String>> restaurantTerms = new HashMap<>();
+    private Map<Integer, Long> restaurantPopularity = new HashMap<>();
+    private volatile long taxonomyVersion = -1;
+    // 作り直しで件数を数えている間に集計が変わった店舗（差し替えた後に人気度を設定し直す）
+    private final Set<Integer> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding = false;
+    private volatile boolean ready = false;
+
+    public RestaurantSuggestIndex(RestaurantCatalogLoader restaurantCatalogLoader, GenreService genreService,
+            ReviewRepository reviewRepository, FavoriteRepository favoriteRepository,
+            CatalogVersion catalogVersion, RestaurantStatsIndex restaurantStatsIndex) {
+        this.restaurantCatalogLoader = restaurantCatalogLoader;
+        this.genreService = genreService;
+        this.reviewRepository = reviewRepository;
+        this.favoriteRepository = favoriteRepository;
+        this.catalogVersion = catalogVersion;
+        this.restaurantStatsIndex = restaurantStatsIndex;
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, RestaurantCatalogReloadEvent.class })
+    public synchronized void rebuild() {
+        changedDuringRebuild.clear();
+        rebuilding = true;
+        Map<Integer, Long> popularity = new HashMap<>();
+        for (List<RestaurantCount> counts : List.of(reviewRepository.countGroupByRestaurant(),
+                favoriteRepository.countGroupByRestaurant())) {
+            for (RestaurantCount count : counts) {
+                popularity.merge(count.getRestaurantId(), count.getCount(), Long::sum);
+            }
+        }
+        List<RestaurantEntry> entries = restaurantCatalogLoader.loadAll();
+        long version = catalogVersion.current();
+        Map<String, List<String>> genreCategoryMap = genreService.getGenreCategoryMap();
+
+        lock.writeLock().lock();
+        try {
+            trie = new SuggestionTrie();
+            suggestions = new HashMap<>();
+            restaurantTerms = new HashMap<>();
+            restaurantPopularity = popularity;
+            addTaxonomy(genreCategoryMap);
+            for (RestaurantEntry entry : entries) {
+                addRestaurant(entry);
+            }
+            // 数えている間に変わった店舗は集計の写しから設定し直す
+            for (Integer restaurantId : changedDuringRebuild) {
+                updatePopularity(restaurantId);
+            }
+            taxonomyVersion = version;
+            ready = true;
+        } finally {
+            rebuilding = false;
+            lock.writeLock().unlock();
+        }
+    }
+
+    // お気に入り・レビューの増減で変わった店舗の人気度だけを更新する
+    @EventListener
+    public void onStatsChange(RestaurantStatsChangeEvent event) {
+        if (rebuilding) {
+            changedDuringRebuild.add(event.getRestaurantId());
+        }
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            updatePopularity(event.getRestaurantId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 店舗の登録・更新・削除をコミット後に差分で反映する
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChange(RestaurantChangeEvent event) {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeRestaurant(event.getRestaurantId());
+            if (!event.isDeleted()) {
+                addRestaurant(event.getEntry());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 入力中の文字列に前方一致する候補を人気順に最大limit件返す
+    // 1文字の入力でも一致する候補をすべて比べ、limit件の大きさのヒープで上位を選ぶ
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = NgramTokenizer.normalize(prefix).strip();
+        if (key.isEmpty() || !ready) {
+            return new ArrayList<>();
+        }
+        refreshTaxonomyIfChanged();
+
+        PriorityQueue<Suggestion> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            for (String id : trie.collect(key)) {
+                Suggestion suggestion = suggestions.get(id);
+                if (suggestion == null) {
+                    continue;
+                }
+                top.add(suggestion);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Suggestion> result = new ArrayList<>(top);
+        result.sort(RANKING);
+        return result;
+    }
+
+    // 人気度はレビュー数とお気に入り数の合計（店舗の候補がなければ何もしない）
+    private void updatePopularity(Integer restaurantId) {
+        String id = "restaurant:" + restaurantId;
+        Suggestion current = suggestions.get(id);
+        if (current == null) {
+            return;
+        }
+        RestaurantStats stats = restaurantStatsIndex.get(restaurantId);
+        long value = stats != null ? (long) stats.getReviewCount() + stats.getFavoriteCount() : 0;
+        restaurantPopularity.put(restaurantId, value);
+        if (current.getPopularity() != value) {
+            suggestions.put(id, new Suggestion(current.getText(), current.getType(), restaurantId, value));
+        }
+    }
+
+    // カテゴリ・ジャンルの追加・名称変更・削除は店舗イベントを伴わないため、版数が変わっていれば今のマスタから登録し直す
+    // マスタにない名前は店舗数によらず候補から外す（店舗側の名前はカタログの再読み込みで作り直される）
+    private void refreshTaxonomyIfChanged() {
+        long version = catalogVersion.current();
+        if (version == taxonomyVersion) {
+            return;
+        }
+        Map<String, List<String>> genreCategoryMap = genreService.getGenreCategoryMap();
+        Set<String> current = new HashSet<>();
+        for (Map.Entry<String, List<String>> genre : genreCategoryMap.entrySet()) {
+            current.add("genre:" + genre.getKey());
+            for (String category : genre.getValue()) {
+                current.add("category:" + category);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (String id : new ArrayList<>(suggestions.keySet())) {
+                Suggestion suggestion = suggestions.get(id);
+                boolean taxonomy = "genre".equals(suggestion.getType()) || "category".equals(suggestion.getType());
+                if (taxonomy && !current.contains(id)) {
+                    removeSuggestion(id);
+                }
+            }
+            addTaxonomy(genreCategoryMap);
+            taxonomyVersion = version;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addTaxonomy(Map<String, List<String>> genreCategoryMap) {
+        for (Map.Entry<String, List<String>> genre : genreCategoryMap.entrySet()) {
+            putSuggestion("genre", genre.getKey(), 0);
+            for (String category : genre.getValue()) {
+                putSuggestion("category", category, 0);
+            }
+        }
+    }
+
+    private void addRestaurant(RestaurantEntry entry) {
+        String id = "restaurant:" + entry.getId();
+        Suggestion suggestion = new Suggestion(entry.getName(), "restaurant", entry.getId(),
+                restaurantPopularity.getOrDefault(entry.getId(), 0L));
+        suggestions.put(id, suggestion);
+        for (String key : keysOf(entry.getName())) {
+            trie.add(key, id);
+        }
+
+        // エリア・カテゴリ・ジャンルは該当する店舗数を人気度とする
+        Set<String> terms = new HashSet<>();
+        for (String area : areasOf(entry)) {
+            terms.add(putSuggestion("area", area, 1));
+        }
+        for (String category : entry.getCategoryNames()) {
+            terms.add(putSuggestion("category", category, 1));
+        }
+        for (String genre : entry.getGenreNames()) {
+            terms.add(putSuggestion("genre", genre, 1));
+        }
+        restaurantTerms.put(entry.getId(), terms);
+    }
+
+    private void removeRestaurant(Integer restaurantId) {
+        String id = "restaurant:" + restaurantId;
+        Suggestion suggestion = suggestions.remove(id);
+        if (suggestion != null) {
+            for (String key : keysOf(suggestion.getText())) {
+                trie.remove(key, id);
+            }
+        }
+
+        Set<String> terms = restaurantTerms.remove(restaurantId);
+        if (terms == null) {
+            return;
+        }
+        for (String termId : terms) {
+            Suggestion term = suggestions.get(termId);
+            if (term == null) {
+                continue;
+            }
+            long popularity = term.getPopularity() - 1;
+            if (popularity <= 0 && "area".equals(term.getType())) {
+                removeSuggestion(termId);
+            } else {
+                suggestions.put(termId, new Suggestion(term.getText(), term.getType(), null, popularity));
+            }
+        }
+    }
+
+    // 候補を登録し、既にあれば人気度を加算する（戻り値は候補ID）
+    private String putSuggestion(String type, String text, long popularity) {
+        String id = type + ":" + text;
+        Suggestion current = suggestions.get(id);
+        if (current == null) {
+            suggestions.put(id, new Suggestion(text, type, null, popularity));
+            for (String key : keysOf(text)) {
+                trie.add(key, id);
+            }
+        } else if (popularity > 0) {
+            suggestions.put(id, new Suggestion(text, type, null, current.getPopularity() + popularity));
+        }
+        return id;
+    }
+
+    private void removeSuggestion(String id) {
+        Suggestion suggestion = suggestions.remove(id);
+        if (suggestion != null) {
+            for (String key : keysOf(suggestion.getText())) {
+                trie.remove(key, id);
+            }
+        }
+    }
+
+    // 全体に加え、空白で区切られた各語の先頭からも一致させる（「風神」で「ラーメン道場 風神」）
+    private static Set<String> keysOf(String text) {
+        Set<String> keys = new LinkedHashSet<>();
+        String normalized = NgramTokenizer.normalize(text);
+        keys.add(normalized);
+        keys.addAll(NgramTokenizer.terms(normalized));
+        return keys;
+    }
+
+    private static Set<String> areasOf(RestaurantEntry entry) {
+        Set<String> areas = new LinkedHashSet<>();
+        String address = entry.getAddress() != null ? entry.getAddress() : "";
+        addMatches(areas, WARD.matcher(address), 1);
+        addMatches(areas, TOWN.matcher(address), 1);
+        addMatches(areas, STATION.matcher(address), 0);
+        if (entry.getDescription() != null) {
+            addMatches(areas, STATION.matcher(entry.getDescription()), 0);
+        }
+        return areas;
+    }
+
+    private static void addMatches(Set<String> areas, Matcher matcher, int group) {
+        while (matcher.find()) {
+            areas.add(matcher.group(group));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.nagoyameshi.search;
+
+import lombok.Getter;
+
+// 入力補完の候補（typeはrestaurant・area・category・genreのいずれか）
+@Getter
+public class Suggestion {
+    private final String text;
+    private final String type;
+    // 店舗名の候補のみ
+    private final Integer restaurantId;
+    private final long popularity;
+
+    public Suggestion(String text, String type, Integer restaurantId, long popularity) {
+        this.text = text;
+        this.type = type;
+        this.restaurantId = restaurantId;
+        this.popularity = popularity;
+    }
+}
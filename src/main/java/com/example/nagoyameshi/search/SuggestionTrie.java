@@ -0,0 +1,57 @@
+package com.example.nagoyameshi.search;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// 正規化した文字列の前方一致で候補IDを引くトライ木（スレッドセーフではないため呼び出し側でロックする）
+class SuggestionTrie {
+    private final Node root = new Node();
+
+    void add(String key, String suggestionId) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        node.suggestionIds.add(suggestionId);
+    }
+
+    void remove(String key, String suggestionId) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node != null) {
+            node.suggestionIds.remove(suggestionId);
+        }
+    }
+
+    // 前方一致するキーに登録された候補IDをすべて集める（人気順の上位は呼び出し側で選ぶ）
+    Set<String> collect(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        Set<String> result = new HashSet<>();
+        if (node == null) {
+            return result;
+        }
+
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            Node current = stack.pop();
+            result.addAll(current.suggestionIds);
+            current.children.values().forEach(stack::push);
+        }
+        return result;
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Set<String> suggestionIds = new HashSet<>();
+    }
+}
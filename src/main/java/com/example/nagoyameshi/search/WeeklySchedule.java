@@ -0,0 +1,83 @@
+package com.example.nagoyameshi.search;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.List;
+
+// 1週間を15分刻み（7日×96枠）にした営業時間のビットマップ（不変）
+public class WeeklySchedule {
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+    // 曜日の並び（月曜日を0とする）
+    private static final String WEEKDAY_CHARS = "月火水木金土日";
+
+    private static final WeeklySchedule UNKNOWN = new WeeklySchedule(new BitSet(SLOTS_PER_WEEK));
+
+    private final BitSet open;
+
+    private WeeklySchedule(BitSet open) {
+        this.open = open;
+    }
+
+    // 開店・閉店時刻と定休日（「月」「火」…）から1週間分の営業枠を求める
+    // 閉店時刻が開店時刻以前の場合は日をまたいで翌日の閉店時刻まで営業しているものとする
+    // （定休日の前日から続く深夜営業は前日の営業として扱い、定休日の未明も営業中になる）
+    public static WeeklySchedule of(LocalTime openingTime, LocalTime closingTime, List<String> holidays) {
+        if (openingTime == null || closingTime == null) {
+            return UNKNOWN;
+        }
+        // 開店時刻以降に始まり、閉店時刻より前に始まる枠を営業中とする
+        int openSlot = ceilSlot(openingTime);
+        int closeSlot = ceilSlot(closingTime);
+
+        BitSet open = new BitSet(SLOTS_PER_WEEK);
+        for (int day = 0; day < 7; day++) {
+            if (holidays.contains(String.valueOf(WEEKDAY_CHARS.charAt(day)))) {
+                continue;
+            }
+            int start = day * SLOTS_PER_DAY;
+            if (closingTime.isAfter(openingTime)) {
+                open.set(start + openSlot, start + closeSlot);
+            } else {
+                open.set(start + openSlot, start + SLOTS_PER_DAY);
+                int next = (day + 1) % 7 * SLOTS_PER_DAY;
+                open.set(next, next + closeSlot);
+            }
+        }
+        return new WeeklySchedule(open);
+    }
+
+    public boolean isOpen(int slot) {
+        return open.get(slot);
+    }
+
+    public BitSet openSlots() {
+        return (BitSet) open.clone();
+    }
+
+    // 曜日と時刻を週内の枠番号に変換する（時刻は15分単位に切り捨てる）
+    public static int slotOf(DayOfWeek dayOfWeek, LocalTime time) {
+        return (dayOfWeek.getValue() - 1) * SLOTS_PER_DAY + time.toSecondOfDay() / 60 / SLOT_MINUTES;
+    }
+
+    public static int slotOf(LocalDateTime dateTime) {
+        return slotOf(dateTime.getDayOfWeek(), dateTime.toLocalTime());
+    }
+
+    // 「月」「火」…の曜日と時刻を週内の枠番号に変換する（曜日が不正な場合はnull）
+    public static Integer slotOf(String weekday, LocalTime time) {
+        int day = weekday == null || weekday.length() != 1 ? -1 : WEEKDAY_CHARS.indexOf(weekday);
+        if (day < 0 || time == null) {
+            return null;
+        }
+        return slotOf(DayOfWeek.of(day + 1), time);
+    }
+
+    private static int ceilSlot(LocalTime time) {
+        int minutes = time.toSecondOfDay() / 60;
+        return (minutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+    }
+}
@@ -9,7 +9,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.nagoyameshi.cache.CatalogVersion;
 import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.event.RestaurantChangeEventPublisher;
 import com.example.nagoyameshi.form.CategoryEditForm;
 import com.example.nagoyameshi.form.CategoryRegisterForm;
 import com.example.nagoyameshi.repository.CategoryRepository;
@@ -20,14 +22,23 @@ public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private TaxonomyService taxonomyService;
+
+    @Autowired
+    private RestaurantChangeEventPublisher restaurantChangeEventPublisher;
+
     // カテゴリの全件取得
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return taxonomyService.get().getCategories();
     }
 
     // カテゴリIDでの検索
     public Optional<Category> getCategoryById(Integer id) {
-        return categoryRepository.findById(id);
+        return Optional.ofNullable(taxonomyService.get().getCategory(id));
     }
 
     // 部分一致検索（名前で検索）
@@ -36,7 +47,7 @@ public class CategoryService {
     }
 
     public List<Category> findAllById(List<Integer> idList){
-        return categoryRepository.findAllById(idList);
+        return taxonomyService.get().getCategories(idList);
     }
 
     public Page<Category> getCategoryPages(Pageable pageable, String keyword) {
@@ -54,6 +65,8 @@ public class CategoryService {
     public Category createCategory(String name) {
         Category category = new Category();
         category.setName(name);
+        taxonomyService.reloadAfterCommit();
+        catalogVersion.bump();
         return categoryRepository.save(category);
     }
 
@@ -64,6 +77,9 @@ public class CategoryService {
         if (categoryOpt.isPresent()) {
             Category category = categoryOpt.get();
             category.setName(name);
+            taxonomyService.reloadAfterCommit();
+            restaurantChangeEventPublisher.publishReloadAfterCommit();
+            catalogVersion.bump();
             return categoryRepository.save(category);
         }
         return null; // 見つからなかった場合
@@ -73,14 +89,22 @@ public class CategoryService {
     @Transactional
     public void deleteCategory(Integer id) {
         categoryRepository.deleteById(id);
+        taxonomyService.reloadAfterCommit();
+        restaurantChangeEventPublisher.publishReloadAfterCommit();
+        catalogVersion.bump();
     }
 
     public void create(CategoryRegisterForm categoryRegisterForm) {
         categoryRepository.save(new Category(categoryRegisterForm));
+        taxonomyService.reloadAfterCommit();
+        catalogVersion.bump();
     }
 
     // カテゴリの削除
     public void update(CategoryEditForm categoryEditForm) {
         categoryRepository.save(new Category(categoryEditForm));
+        taxonomyService.reloadAfterCommit();
+        restaurantChangeEventPublisher.publishReloadAfterCommit();
+        catalogVersion.bump();
     }
 }
@@ -1,33 +1,126 @@
 package com.example.nagoyameshi.service;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.example.nagoyameshi.cache.ApproximateCounts;
+import com.example.nagoyameshi.cache.UserRestaurantMarks;
+import com.example.nagoyameshi.dto.CursorPage;
+import com.example.nagoyameshi.dto.FavoriteKey;
+import com.example.nagoyameshi.dto.RestaurantSummary;
 import com.example.nagoyameshi.entity.Favorite;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.User;
 import com.example.nagoyameshi.repository.FavoriteRepository;
+import com.example.nagoyameshi.repository.UserRepository;
+import com.example.nagoyameshi.valueObject.CreatedAtCursor;
 
 @Service
 public class FavoriteService {
     private final FavoriteRepository favoriteRepository;
+    private final RestaurantStatsService restaurantStatsService;
+    private final RestaurantService restaurantService;
+    private final ApproximateCounts approximateCounts;
+    private final UserRestaurantMarks userRestaurantMarks;
+    private final UserRepository userRepository;
 
-    public FavoriteService(FavoriteRepository favoriteRepository) {
+    public FavoriteService(FavoriteRepository favoriteRepository, RestaurantStatsService restaurantStatsService,
+            RestaurantService restaurantService, ApproximateCounts approximateCounts,
+            UserRestaurantMarks userRestaurantMarks, UserRepository userRepository) {
         this.favoriteRepository = favoriteRepository;
+        this.restaurantStatsService = restaurantStatsService;
+        this.restaurantService = restaurantService;
+        this.approximateCounts = approximateCounts;
+        this.userRestaurantMarks = userRestaurantMarks;
+        this.userRepository = userRepository;
+    }
+
+    // 登録済みの場合は何もしない（ボタンの二度押しでも一意制約違反にしない）
+    // 同じユーザーの登録はユーザーの行のロックで順に行い、登録済みかどうかの確認と登録の間に割り込ませない
+    @Transactional
+    public boolean create(Integer restaurantId, Integer userId) {
+        userRepository.lockById(userId);
+        if (!restaurantService.exists(restaurantId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        if (favoriteRepository.existsByRestaurantIdAndUserId(restaurantId, userId)) {
+            return false;
+        }
+        favoriteRepository.insertIfAbsent(restaurantId, userId);
+        restaurantStatsService.favoriteAdded(restaurantId);
+        approximateCounts.markStale(countKey(userId));
+        userRestaurantMarks.favoriteAddedAfterCommit(userId, restaurantId);
+        return true;
+    }
+
+    // 本人のお気に入りだけを削除する（未登録の場合は何もしない）
+    @Transactional
+    public boolean delete(Integer restaurantId, Integer userId) {
+        if (favoriteRepository.deleteByRestaurantIdAndUserId(restaurantId, userId) == 0) {
+            return false;
+        }
+        restaurantStatsService.favoriteRemoved(restaurantId);
+        approximateCounts.markStale(countKey(userId));
+        userRestaurantMarks.favoriteRemovedAfterCommit(userId, restaurantId);
+        return true;
     }
 
+    // 指定した状態にする（同じ状態を何度指定しても結果は変わらない）
     @Transactional
-    public void create(Restaurant restaurant, User user) {
-        Favorite favorite = new Favorite();
+    public void setFavorite(Integer restaurantId, Integer userId, boolean favorite) {
+        if (favorite) {
+            create(restaurantId, userId);
+        } else {
+            delete(restaurantId, userId);
+        }
+    }
+
+    // 店舗のお気に入り数（restaurant_statsの値で、COUNT(*)は発行しない）
+    public long getFavoriteCount(Integer restaurantId) {
+        return restaurantStatsService.getFavoriteCount(restaurantId);
+    }
+
+    // お気に入りに追加した店舗を新しい順にsize件ずつ取得する（件数は数えず、1件多く取得して次があるかを判定する）
+    // お気に入りはインデックスだけで店舗IDを読み、店舗の情報は検索結果と同じ方法でまとめて取得する
+    public CursorPage<RestaurantSummary> getFavoriteRestaurants(Integer userId, String cursor, int size) {
+        CreatedAtCursor after = CreatedAtCursor.decode(cursor);
+        if (after == null) {
+            after = CreatedAtCursor.FIRST;
+        }
+        List<FavoriteKey> keys = favoriteRepository.findKeysByUserIdBefore(userId, after.getCreatedAt(),
+                after.getId(), PageRequest.ofSize(size + 1));
 
-        favorite.setRestaurant(restaurant);
-        favorite.setUser(user);
+        String nextCursor = null;
+        if (keys.size() > size) {
+            keys = keys.subList(0, size);
+            FavoriteKey last = keys.get(size - 1);
+            nextCursor = new CreatedAtCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        List<RestaurantSummary> restaurants = restaurantService.getSummaries(keys.stream()
+                .map(FavoriteKey::getRestaurantId)
+                .collect(Collectors.toList()));
+        return new CursorPage<>(restaurants, nextCursor);
+    }
+
+    // お気に入り一覧に表示する件数（数え終わるまではnull）
+    public Long getApproximateCount(User user) {
+        Integer userId = user.getId();
+        return approximateCounts.get(countKey(userId), () -> favoriteRepository.countByUserId(userId));
+    }
 
-        favoriteRepository.save(favorite);
+    private static String countKey(Integer userId) {
+        return "favorites:" + userId;
     }
 
+    // ユーザーごとの店舗IDの集合で判定する（問い合わせは最初の1回だけ）
     public boolean isFavorite(Restaurant restaurant, User user) {
-        return getFavorite(restaurant, user) != null;
+        return userRestaurantMarks.get(user.getId()).isFavorite(restaurant.getId());
     }
 
     public Favorite getFavorite(Restaurant restaurant, User user) {
@@ -1,84 +1,86 @@
 package com.example.nagoyameshi.service;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.nagoyameshi.cache.CatalogVersion;
 import com.example.nagoyameshi.dto.GenreCategoryDTO;
-import com.example.nagoyameshi.entity.Category;
 import com.example.nagoyameshi.entity.Genre;
+import com.example.nagoyameshi.event.RestaurantChangeEventPublisher;
 import com.example.nagoyameshi.repository.GenreRepository;
 
 @Service
 public class GenreService {
 
     private final GenreRepository genreRepository;
+    private final TaxonomyService taxonomyService;
+    private final CatalogVersion catalogVersion;
+    private final RestaurantChangeEventPublisher restaurantChangeEventPublisher;
 
     @Autowired
-    public GenreService(GenreRepository genreRepository) {
+    public GenreService(GenreRepository genreRepository, TaxonomyService taxonomyService,
+            CatalogVersion catalogVersion, RestaurantChangeEventPublisher restaurantChangeEventPublisher) {
         this.genreRepository = genreRepository;
+        this.taxonomyService = taxonomyService;
+        this.catalogVersion = catalogVersion;
+        this.restaurantChangeEventPublisher = restaurantChangeEventPublisher;
     }
 
     // ジャンル一覧を取得
     public List<Genre> getAllGenres() {
-        return genreRepository.findAll();
+        return taxonomyService.get().getGenres();
     }
 
     // IDでジャンルを取得
     public Optional<Genre> getGenreById(Integer id) {
-        return genreRepository.findById(id);
+        return Optional.ofNullable(taxonomyService.get().getGenre(id));
     }
 
     // ジャンルを追加
+    @Transactional
     public Genre addGenre(Genre genre) {
-        return genreRepository.save(genre);
+        Genre saved = genreRepository.save(genre);
+        taxonomyService.reloadAfterCommit();
+        restaurantChangeEventPublisher.publishReloadAfterCommit();
+        catalogVersion.bump();
+        return saved;
     }
 
     // ジャンルを更新
+    @Transactional
     public Genre updateGenre(Integer id, Genre genre) {
         if (genreRepository.existsById(id)) {
             genre.setId(id);
-            return genreRepository.save(genre);
+            Genre saved = genreRepository.save(genre);
+            taxonomyService.reloadAfterCommit();
+            restaurantChangeEventPublisher.publishReloadAfterCommit();
+            catalogVersion.bump();
+            return saved;
         } else {
             throw new IllegalArgumentException("ジャンルが存在しません");
         }
     }
 
     // ジャンルを削除
+    @Transactional
     public void deleteGenre(Integer id) {
         genreRepository.deleteById(id);
+        taxonomyService.reloadAfterCommit();
+        restaurantChangeEventPublisher.publishReloadAfterCommit();
+        catalogVersion.bump();
     }
 
+    // ジャンルごとのカテゴリ名（メモリ上のスナップショットから返すため変更不可）
     public Map<String, List<String>> getGenreCategoryMap() {
-        List<Genre> genres = genreRepository.findAllWithCategories();
-        Map<String, List<String>> genreCategoryMap = new LinkedHashMap<>();
-
-        for (Genre genre : genres) {
-            List<String> categoryNames = genre.getCategories()
-                    .stream()
-                    .map(Category::getName)
-                    .collect(Collectors.toList());
-            genreCategoryMap.put(genre.getName(), categoryNames);
-        }
-        return genreCategoryMap;
+        return taxonomyService.get().getGenreCategoryMap();
     }
 
     public List<GenreCategoryDTO> getGenreCategoryDropdownList() {
-        List<Genre> genres = genreRepository.findAllWithCategories();
-        List<GenreCategoryDTO> dropdownList = new ArrayList<>();
-
-        for (Genre genre : genres) {
-            for (Category category : genre.getCategories()) {
-                dropdownList.add(new GenreCategoryDTO(genre.getName(), category.getName()));
-            }
-        }
-
-        return dropdownList;
+        return taxonomyService.get().getGenreCategoryDropdownList();
     }
 }
\ No newline at end of file
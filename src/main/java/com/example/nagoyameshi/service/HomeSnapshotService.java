@@ -0,0 +1,100 @@
+package com.example.nagoyameshi.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.example.nagoyameshi.cache.BackgroundTasks;
+import com.example.nagoyameshi.cache.CatalogVersion;
+import com.example.nagoyameshi.dto.HomeRestaurant;
+import com.example.nagoyameshi.dto.HomeSnapshot;
+import com.example.nagoyameshi.entity.RestaurantStats;
+import com.example.nagoyameshi.event.RestaurantCatalogReloadEvent;
+import com.example.nagoyameshi.search.RestaurantStatsIndex;
+
+// トップページの表示内容をメモリ上に保持する
+// 店舗・カテゴリ・評価の版数が変わっていれば、表示は今のスナップショットで返しつつ別スレッドで作り直す
+@Service
+public class HomeSnapshotService {
+    private static final Logger log = LoggerFactory.getLogger(HomeSnapshotService.class);
+
+    private final RestaurantService restaurantService;
+    private final GenreService genreService;
+    private final RestaurantStatsIndex restaurantStatsIndex;
+    private final CatalogVersion catalogVersion;
+    private final BackgroundTasks backgroundTasks;
+
+    private volatile HomeSnapshot snapshot;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public HomeSnapshotService(RestaurantService restaurantService, GenreService genreService,
+            RestaurantStatsIndex restaurantStatsIndex, CatalogVersion catalogVersion,
+            BackgroundTasks backgroundTasks) {
+        this.restaurantService = restaurantService;
+        this.genreService = genreService;
+        this.restaurantStatsIndex = restaurantStatsIndex;
+        this.catalogVersion = catalogVersion;
+        this.backgroundTasks = backgroundTasks;
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, RestaurantCatalogReloadEvent.class })
+    public void rebuild() {
+        snapshot = build();
+    }
+
+    public HomeSnapshot get() {
+        HomeSnapshot current = snapshot;
+        if (current == null) {
+            // 起動直後でまだ作られていない場合のみ、その場で作る
+            current = build();
+            snapshot = current;
+        } else if (current.getCatalogVersion() != catalogVersion.current()
+                || current.getStatsVersion() != restaurantStatsIndex.version()) {
+            rebuildAsync();
+        }
+        return current;
+    }
+
+    private void rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        boolean submitted = backgroundTasks.execute(() -> {
+            try {
+                snapshot = build();
+            } catch (RuntimeException e) {
+                log.warn("Could not rebuild the home page snapshot", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        if (!submitted) {
+            // 混み合っている場合は次の表示で作り直す
+            rebuilding.set(false);
+        }
+    }
+
+    // 版数は読み込みより先に取得する（読み込み中の変更は次の表示で作り直される）
+    private HomeSnapshot build() {
+        long version = catalogVersion.current();
+        long statsVersion = restaurantStatsIndex.version();
+
+        List<HomeRestaurant> newRestaurants = restaurantService.getNewRestaurants().stream()
+                .map(summary -> {
+                    RestaurantStats stats = restaurantStatsIndex.get(summary.getId());
+                    boolean reviewed = stats != null && stats.getReviewCount() > 0;
+                    BigDecimal averageScore = reviewed ? stats.getAverageScore() : null;
+                    return new HomeRestaurant(summary, averageScore, reviewed ? stats.getReviewCount() : 0);
+                })
+                .collect(Collectors.toList());
+
+        return new HomeSnapshot(newRestaurants, genreService.getGenreCategoryMap(), version, statsVersion);
+    }
+}
@@ -5,6 +5,7 @@ import java.time.LocalDate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.nagoyameshi.cache.ApproximateCounts;
 import com.example.nagoyameshi.entity.Reservation;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.User;
@@ -19,12 +20,17 @@ public class ReservationService {
 	private final ReservationRepository reservationRepository;
 	private final RestaurantRepository restaurantRepository;
 	private final UserRepository userRepository;
+	private final RestaurantStatsService restaurantStatsService;
+	private final ApproximateCounts approximateCounts;
 
 	public ReservationService(ReservationRepository reservationRepository, RestaurantRepository restauranteRepository,
-			UserRepository userRepository) {
+			UserRepository userRepository, RestaurantStatsService restaurantStatsService,
+			ApproximateCounts approximateCounts) {
 		this.reservationRepository = reservationRepository;
 		this.restaurantRepository = restauranteRepository;
 		this.userRepository = userRepository;
+		this.restaurantStatsService = restaurantStatsService;
+		this.approximateCounts = approximateCounts;
 	}
 
 	@Transactional
@@ -40,6 +46,18 @@ public class ReservationService {
 		reservation.setNumberOfPeople(reservationRegisterForm.getNumberOfPeople());
 
 		reservationRepository.save(reservation);
+		restaurantStatsService.reservationAdded(reservationRegisterForm.getRestaurantId());
+		approximateCounts.markStale(countKey(reservationRegisterForm.getUserId()));
+	}
+
+	// 予約一覧に表示する件数（数え終わるまではnull）
+	public Long getApproximateCount(User user) {
+		Integer userId = user.getId();
+		return approximateCounts.get(countKey(userId), () -> reservationRepository.countByUserId(userId));
+	}
+
+	private static String countKey(Integer userId) {
+		return "reservations:" + userId;
 	}
 
 	// 宿泊人数が定員以下かどうかをチェックする
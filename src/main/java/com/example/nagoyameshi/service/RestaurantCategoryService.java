@@ -1,17 +1,26 @@
 package com.example.nagoyameshi.service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.nagoyameshi.dto.CategoryBackfillResult;
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.cache.CatalogVersion;
+import com.example.nagoyameshi.cache.EntityCaches;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.RestaurantCategory;
 import com.example.nagoyameshi.form.RestaurantEditForm;
 import com.example.nagoyameshi.form.RestaurantRegisterForm;
+import com.example.nagoyameshi.repository.CategoryRepository;
 import com.example.nagoyameshi.repository.RestaurantCategoryRepository;
 import com.example.nagoyameshi.repository.RestaurantRepository;
 
@@ -19,13 +28,22 @@ import com.example.nagoyameshi.repository.RestaurantRepository;
 public class RestaurantCategoryService {
     private final RestaurantCategoryRepository restaurantCategoryRepository;
     private final RestaurantRepository restaurantRepository;
+    private final CatalogVersion catalogVersion;
+    private final EntityCaches entityCaches;
+    private final CategoryRepository categoryRepository;
 
     @Autowired
     public RestaurantCategoryService(
             RestaurantCategoryRepository restaurantCategoryRepository,
-            RestaurantRepository restaurantRepository) {
+            RestaurantRepository restaurantRepository,
+            CategoryRepository categoryRepository,
+            CatalogVersion catalogVersion,
+            EntityCaches entityCaches) {
         this.restaurantCategoryRepository = restaurantCategoryRepository;
         this.restaurantRepository = restaurantRepository;
+        this.catalogVersion = catalogVersion;
+        this.entityCaches = entityCaches;
+        this.categoryRepository = categoryRepository;
     }
 
     @Transactional
@@ -35,6 +53,8 @@ public class RestaurantCategoryService {
         restaurant.setCategories(new ArrayList<RestaurantCategory>());
 
         restaurantRepository.save(restaurant);
+        entityCaches.evictRestaurantAfterCommit(id);
+        catalogVersion.bump();
     }
 
     @Transactional
@@ -50,5 +70,47 @@ public class RestaurantCategoryService {
                 .collect(Collectors.toList());
 
         restaurantCategoryRepository.saveAll(categoryList);
+        entityCaches.evictRestaurantAfterCommit(restaurant.getId());
+        catalogVersion.bump();
+    }
+
+    // 旧restaurants.categoryカラム（「、」区切りのカテゴリ名）を中間テーブルへ移行する
+    // 登録済みの組み合わせは飛ばすため、何度実行しても同じ結果になる
+    @Transactional
+    public CategoryBackfillResult backfillLegacyCategories() {
+        Map<String, Category> categoriesByName = categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(Category::getName, Function.identity(), (first, second) -> first));
+        List<Restaurant> restaurants = restaurantRepository.findAllWithCategories();
+
+        List<RestaurantCategory> inserts = new ArrayList<>();
+        Set<String> unknownNames = new LinkedHashSet<>();
+        for (Restaurant restaurant : restaurants) {
+            Set<Integer> registered = restaurant.getCategories().stream()
+                    .map(RestaurantCategory::getCategoryId)
+                    .collect(Collectors.toSet());
+
+            for (String name : splitLegacyCategory(restaurant.getCategory())) {
+                Category category = categoriesByName.get(name);
+                if (category == null) {
+                    unknownNames.add(name);
+                } else if (registered.add(category.getId())) {
+                    inserts.add(new RestaurantCategory(restaurant.getId(), restaurant, category.getId(), category));
+                }
+            }
+        }
+        restaurantCategoryRepository.saveAll(inserts);
+        entityCaches.evictRestaurantsAfterCommit();
+        catalogVersion.bump();
+
+        return new CategoryBackfillResult(restaurants.size(), inserts.size(), unknownNames);
+    }
+
+    private static List<String> splitLegacyCategory(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return List.of(value.split("[、,，\\s]+")).stream()
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,111 @@
+package com.example.nagoyameshi.service;
+
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.nagoyameshi.dto.RestaurantDetail;
+import com.example.nagoyameshi.dto.ReviewView;
+import com.example.nagoyameshi.entity.User;
+import com.example.nagoyameshi.repository.ReviewRepository;
+import com.example.nagoyameshi.valueObject.HourMinute;
+
+import jakarta.persistence.EntityManager;
+
+// 店舗詳細ページの表示内容を2回の問い合わせで読み込む
+// 1回目で店舗・カテゴリ名・定休日名・レビューとお気に入りの集計・ログインユーザーのレビューとお気に入りを、2回目で最新のレビューを取得する
+@Service
+public class RestaurantDetailService {
+	// 詳細ページに表示するレビューの件数
+	public static final int NEW_REVIEWS = 6;
+	private static final String SEPARATOR = "、";
+
+	private static final String SQL = "SELECT r.restaurant_id, r.name, r.image_name, r.description, r.price, r.seats, "
+			+ "r.postal_code, r.address, r.phone_number, r.opening_time, r.closing_time, "
+			+ "(SELECT GROUP_CONCAT(c.name ORDER BY c.category_id SEPARATOR '" + SEPARATOR + "') "
+			+ "FROM restaurant_categories rc JOIN categories c ON c.category_id = rc.category_id "
+			+ "WHERE rc.restaurant_id = r.restaurant_id), "
+			+ "(SELECT GROUP_CONCAT(w.name ORDER BY w.weekday_id SEPARATOR '" + SEPARATOR + "') "
+			+ "FROM restaurant_holidays rh JOIN weekdays w ON w.weekday_id = rh.weekday_id "
+			+ "WHERE rh.restaurant_id = r.restaurant_id), "
+			+ "COALESCE(s.review_count, 0), s.average_score, "
+			+ "(SELECT MIN(v.id) FROM reviews v WHERE v.restaurant_id = r.restaurant_id AND v.user_id = :userId), "
+			+ "(SELECT MIN(f.id) FROM favorites f WHERE f.restaurant_id = r.restaurant_id AND f.user_id = :userId), "
+			+ "COALESCE(s.favorite_count, 0) "
+			+ "FROM restaurants r LEFT JOIN restaurant_stats s ON s.restaurant_id = r.restaurant_id "
+			+ "WHERE r.restaurant_id = :restaurantId";
+
+	private final EntityManager entityManager;
+	private final ReviewRepository reviewRepository;
+
+	public RestaurantDetailService(EntityManager entityManager, ReviewRepository reviewRepository) {
+		this.entityManager = entityManager;
+		this.reviewRepository = reviewRepository;
+	}
+
+	// 店舗が存在しない場合はnullを返す（userは未ログインの場合null）
+	@Transactional(readOnly = true)
+	public RestaurantDetail load(Integer restaurantId, User user) {
+		List<?> rows = entityManager.createNativeQuery(SQL)
+				.setParameter("restaurantId", restaurantId)
+				// IDは1から振られるため、未ログインの場合は0で該当なしにする
+				.setParameter("userId", user != null ? user.getId() : 0)
+				.getResultList();
+		if (rows.isEmpty()) {
+			return null;
+		}
+		Object[] row = (Object[]) rows.get(0);
+		long reviewCount = ((Number) row[13]).longValue();
+
+		// レビューがなければ2回目の問い合わせは省く
+		List<ReviewView> newReviews = reviewCount > 0
+				? reviewRepository.findViewsByRestaurantId(restaurantId, PageRequest.ofSize(NEW_REVIEWS))
+				: Collections.emptyList();
+
+		return new RestaurantDetail(
+				((Number) row[0]).intValue(),
+				(String) row[1],
+				(String) row[2],
+				(String) row[3],
+				toInteger(row[4]),
+				toInteger(row[5]),
+				(String) row[6],
+				(String) row[7],
+				(String) row[8],
+				toHourMinute(row[9]),
+				toHourMinute(row[10]),
+				split((String) row[11]),
+				split((String) row[12]),
+				reviewCount,
+				reviewCount > 0 ? (BigDecimal) row[14] : null,
+				toInteger(row[15]),
+				toInteger(row[16]),
+				((Number) row[17]).longValue(),
+				newReviews);
+	}
+
+	private static Integer toInteger(Object value) {
+		return value != null ? ((Number) value).intValue() : null;
+	}
+
+	private static HourMinute toHourMinute(Object value) {
+		if (value instanceof Time time) {
+			return new HourMinute(time.toLocalTime());
+		}
+		if (value instanceof LocalTime time) {
+			return new HourMinute(time);
+		}
+		return null;
+	}
+
+	private static List<String> split(String value) {
+		return value == null || value.isEmpty() ? Collections.emptyList() : Arrays.asList(value.split(SEPARATOR));
+	}
+}
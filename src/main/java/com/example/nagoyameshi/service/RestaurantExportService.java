@@ -0,0 +1,137 @@
+package com.example.nagoyameshi.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// 店舗一覧（カテゴリ・定休日を含む）をCSV・NDJSONで書き出す
+// 結果セットを1行ずつ読みながら書き出すため、件数によらずメモリ使用量は一定になる
+@Service
+public class RestaurantExportService {
+	private static final String SEPARATOR = "、";
+	// カテゴリ・定休日は行ごとの相関サブクエリで連結する（全体をGROUP BYすると一時表ができ、先頭行が届くまで待たされるため）
+	private static final String SQL = "SELECT r.restaurant_id, r.name, r.description, r.price, r.seats, r.postal_code, "
+			+ "r.address, r.phone_number, r.business_hours, r.opening_time, r.closing_time, "
+			+ "(SELECT GROUP_CONCAT(c.name ORDER BY c.category_id SEPARATOR '" + SEPARATOR + "') "
+			+ "FROM restaurant_categories rc JOIN categories c ON c.category_id = rc.category_id "
+			+ "WHERE rc.restaurant_id = r.restaurant_id) AS categories, "
+			+ "(SELECT GROUP_CONCAT(w.name ORDER BY w.weekday_id SEPARATOR '" + SEPARATOR + "') "
+			+ "FROM restaurant_holidays rh JOIN weekdays w ON w.weekday_id = rh.weekday_id "
+			+ "WHERE rh.restaurant_id = r.restaurant_id) AS holidays, "
+			+ "r.created_at, r.updated_at "
+			+ "FROM restaurants r ORDER BY r.restaurant_id";
+	private static final String[] COLUMNS = { "id", "name", "description", "price", "seats", "postal_code",
+			"address", "phone_number", "business_hours", "opening_time", "closing_time", "categories", "holidays",
+			"created_at", "updated_at" };
+	private static final int CATEGORIES = 11;
+	private static final int HOLIDAYS = 12;
+	// 最初の1行はすぐに送り、以降はこの行数ごとにフラッシュする
+	private static final int FLUSH_ROWS = 1000;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectMapper objectMapper;
+
+	public RestaurantExportService(DataSource dataSource, ObjectMapper objectMapper) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		// MySQL Connector/Jではフェッチサイズに最小値を指定すると、全件を読み込まずに1行ずつ受け取る
+		this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+		this.objectMapper = objectMapper;
+	}
+
+	public void writeCsv(OutputStream outputStream) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		// Excelで文字化けしないようBOMを付ける
+		writer.write('\uFEFF');
+		writer.write(String.join(",", COLUMNS));
+		writer.write("\r\n");
+		stream(writer, values -> {
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					writer.write(',');
+				}
+				writer.write(csv(values[i]));
+			}
+			writer.write("\r\n");
+		});
+		writer.flush();
+	}
+
+	public void writeNdjson(OutputStream outputStream) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		stream(writer, values -> {
+			Map<String, Object> row = new LinkedHashMap<>();
+			for (int i = 0; i < values.length; i++) {
+				if (i == CATEGORIES || i == HOLIDAYS) {
+					row.put(COLUMNS[i], split(values[i]));
+				} else if (i == 0 || i == 3 || i == 4) {
+					row.put(COLUMNS[i], values[i] != null ? Long.valueOf(values[i]) : null);
+				} else {
+					row.put(COLUMNS[i], values[i]);
+				}
+			}
+			writer.write(objectMapper.writeValueAsString(row));
+			writer.write('\n');
+		});
+		writer.flush();
+	}
+
+	private void stream(Writer writer, RowWriter rowWriter) {
+		int[] rows = { 0 };
+		jdbcTemplate.query(SQL, (ResultSet resultSet) -> {
+			try {
+				rowWriter.write(valuesOf(resultSet));
+				rows[0]++;
+				if (rows[0] == 1 || rows[0] % FLUSH_ROWS == 0) {
+					writer.flush();
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	private static String[] valuesOf(ResultSet resultSet) throws SQLException {
+		String[] values = new String[COLUMNS.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = resultSet.getString(i + 1);
+		}
+		return values;
+	}
+
+	private static String csv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+		return value;
+	}
+
+	private static List<String> split(String value) {
+		return value == null || value.isEmpty() ? Collections.emptyList() : Arrays.asList(value.split(SEPARATOR));
+	}
+
+	@FunctionalInterface
+	private interface RowWriter {
+		void write(String[] values) throws IOException;
+	}
+}
@@ -8,6 +8,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.nagoyameshi.cache.CatalogVersion;
+import com.example.nagoyameshi.cache.EntityCaches;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.RestaurantCategory;
 import com.example.nagoyameshi.entity.RestaurantHoliday;
@@ -20,13 +22,19 @@ import com.example.nagoyameshi.repository.RestaurantRepository;
 public class RestaurantHolidayService {
     private final RestaurantHolidayRepository restaurantHolidayRepository;
     private final RestaurantRepository restaurantRepository;
+    private final CatalogVersion catalogVersion;
+    private final EntityCaches entityCaches;
 
     @Autowired
     public RestaurantHolidayService(
             RestaurantHolidayRepository restaurantHolidayRepository,
-            RestaurantRepository restaurantRepository) {
+            RestaurantRepository restaurantRepository,
+            CatalogVersion catalogVersion,
+            EntityCaches entityCaches) {
         this.restaurantHolidayRepository = restaurantHolidayRepository;
         this.restaurantRepository = restaurantRepository;
+        this.catalogVersion = catalogVersion;
+        this.entityCaches = entityCaches;
     }
 
     public List<RestaurantHoliday> findByRestaurantId(Integer restaurantId) {
@@ -44,6 +52,8 @@ public class RestaurantHolidayService {
         restaurant.setCategories(new ArrayList<RestaurantCategory>());
 
         restaurantRepository.save(restaurant);
+        entityCaches.evictRestaurantAfterCommit(id);
+        catalogVersion.bump();
     }
 
     @Transactional
@@ -59,5 +69,7 @@ public class RestaurantHolidayService {
                 .collect(Collectors.toList());
 
         restaurantHolidayRepository.saveAll(holidays);
+        entityCaches.evictRestaurantAfterCommit(restaurant.getId());
+        catalogVersion.bump();
     }
 }
@@ -0,0 +1,528 @@
+package com.example.nagoyameshi.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.nagoyameshi.cache.CatalogVersion;
+import com.example.nagoyameshi.cache.EntityCaches;
+import com.example.nagoyameshi.dto.RestaurantImportError;
+import com.example.nagoyameshi.dto.RestaurantImportProgress;
+import com.example.nagoyameshi.dto.Taxonomy;
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Weekday;
+import com.example.nagoyameshi.event.RestaurantChangeEventPublisher;
+import com.example.nagoyameshi.form.RestaurantRegisterForm;
+import com.example.nagoyameshi.valueObject.HourMinute;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+// CSV・NDJSONからの店舗の一括登録
+// ファイルは1件ずつ読みながら検証し、一定件数ごとに複数行INSERTをまとめて1トランザクションで書き込む
+@Service
+public class RestaurantImportService {
+	private static final Logger log = LoggerFactory.getLogger(RestaurantImportService.class);
+
+	// 1トランザクションで書き込む店舗数
+	private static final int CHUNK_SIZE = 500;
+	private static final String SEPARATOR = "、";
+	// restaurantsテーブルの列の長さ（超えるとチャンク全体が失敗するため事前に確認する）
+	private static final Map<String, Integer> MAX_LENGTHS = Map.of(
+			"name", 50, "description", 255, "postal_code", 50, "address", 255, "phone_number", 50);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final TaxonomyService taxonomyService;
+	private final Validator validator;
+	private final ObjectMapper objectMapper;
+	private final RestaurantChangeEventPublisher restaurantChangeEventPublisher;
+	private final CatalogVersion catalogVersion;
+	private final EntityCaches entityCaches;
+
+	// 取り込み中のジョブは残し、終わったジョブは結果を確認できるよう一定時間だけ残す（エラー行をヒープに持ち続けないため）
+	private final Cache<String, RestaurantImportProgress> jobs;
+	// 同時に複数の取り込みを走らせないよう1スレッドで順に処理する
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+	public RestaurantImportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+			TaxonomyService taxonomyService, Validator validator,
+			ObjectMapper objectMapper, RestaurantChangeEventPublisher restaurantChangeEventPublisher,
+			CatalogVersion catalogVersion, EntityCaches entityCaches,
+			@Value("${nagoyameshi.import.finished-job-ttl-minutes:60}") long finishedJobTtlMinutes) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.taxonomyService = taxonomyService;
+		this.validator = validator;
+		this.objectMapper = objectMapper;
+		this.restaurantChangeEventPublisher = restaurantChangeEventPublisher;
+		this.catalogVersion = catalogVersion;
+		this.entityCaches = entityCaches;
+		long finishedJobTtl = Duration.ofMinutes(finishedJobTtlMinutes).toNanos();
+		this.jobs = Caffeine.newBuilder()
+				.expireAfter(new Expiry<String, RestaurantImportProgress>() {
+					@Override
+					public long expireAfterCreate(String jobId, RestaurantImportProgress progress, long currentTime) {
+						return progress.isRunning() ? Long.MAX_VALUE : finishedJobTtl;
+					}
+
+					// 終了時に入れ直すと、その時点から保持期間を数え始める
+					@Override
+					public long expireAfterUpdate(String jobId, RestaurantImportProgress progress, long currentTime,
+							long currentDuration) {
+						return progress.isRunning() ? Long.MAX_VALUE : finishedJobTtl;
+					}
+
+					@Override
+					public long expireAfterRead(String jobId, RestaurantImportProgress progress, long currentTime,
+							long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.build();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// アップロードされたファイルを一時ファイルに保存し、別スレッドで取り込みを始める
+	public RestaurantImportProgress start(MultipartFile file) throws IOException {
+		String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "";
+		boolean ndjson = fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl");
+		Path path = Files.createTempFile("restaurant-import-", ndjson ? ".ndjson" : ".csv");
+		file.transferTo(path);
+
+		RestaurantImportProgress progress = new RestaurantImportProgress(UUID.randomUUID().toString(), fileName);
+		jobs.put(progress.getJobId(), progress);
+		executor.submit(() -> run(path, ndjson, progress));
+		return progress;
+	}
+
+	public RestaurantImportProgress getProgress(String jobId) {
+		return jobs.getIfPresent(jobId);
+	}
+
+	// 行ごとのエラーをCSVで書き出す（行番号はヘッダーを除いた何件目か）
+	public void writeErrorsCsv(RestaurantImportProgress progress, OutputStream outputStream) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		writer.write('\uFEFF');
+		writer.write("row,name,message\r\n");
+		for (RestaurantImportError error : progress.getErrors()) {
+			writer.write(error.getRow() + "," + csv(error.getName()) + "," + csv(error.getMessage()) + "\r\n");
+		}
+		writer.flush();
+	}
+
+	private void run(Path path, boolean ndjson, RestaurantImportProgress progress) {
+		try (RecordReader reader = ndjson
+				? new NdjsonReader(Files.newInputStream(path), objectMapper)
+				: new CsvReader(Files.newInputStream(path))) {
+			// カテゴリ・曜日は取り込みの間同じスナップショットから名前で引く
+			Taxonomy taxonomy = taxonomyService.get();
+
+			List<ImportRow> chunk = new ArrayList<>();
+			long rowNumber = 0;
+			Map<String, String> record;
+			while ((record = reader.next()) != null) {
+				rowNumber++;
+				ImportRow row = toRow(rowNumber, record, taxonomy, progress);
+				progress.rowProcessed();
+				if (row == null) {
+					continue;
+				}
+				chunk.add(row);
+				if (chunk.size() >= CHUNK_SIZE) {
+					write(chunk, progress);
+					chunk.clear();
+				}
+			}
+			write(chunk, progress);
+			progress.finish();
+		} catch (Exception e) {
+			log.warn("Restaurant import {} failed", progress.getJobId(), e);
+			progress.fail(e.getMessage());
+		} finally {
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException e) {
+				log.warn("Could not delete {}", path, e);
+			}
+			jobs.put(progress.getJobId(), progress);
+			if (progress.getImportedRows() > 0) {
+				// JDBCで書き込んだためHibernateのクエリキャッシュは自動では破棄されない
+				entityCaches.evictRestaurantsAfterCommit();
+				catalogVersion.bump();
+				restaurantChangeEventPublisher.publishReload();
+			}
+		}
+	}
+
+	// 1件分の値を既存の登録フォームと同じ制約で検証し、エラーがあれば記録してnullを返す
+	private ImportRow toRow(long rowNumber, Map<String, String> record, Taxonomy taxonomy,
+			RestaurantImportProgress progress) {
+		String name = record.get("name");
+		List<String> messages = new ArrayList<>();
+
+		RestaurantRegisterForm form = new RestaurantRegisterForm();
+		form.setName(name);
+		form.setDescription(record.get("description"));
+		form.setPostalCode(record.get("postal_code"));
+		form.setAddress(record.get("address"));
+		form.setPhoneNumber(record.get("phone_number"));
+		form.setPrice(parseInteger(record.get("price"), "価格帯", messages));
+		form.setSeats(parseInteger(record.get("seats"), "座席数", messages));
+		form.setOpenTime(parseTime(record.get("opening_time"), "開店時間", messages));
+		form.setCloseTime(parseTime(record.get("closing_time"), "閉店時間", messages));
+
+		List<Integer> categoryIdList = new ArrayList<>();
+		for (String categoryName : split(record.get("categories"))) {
+			Category category = taxonomy.getCategoryByName(categoryName);
+			if (category == null) {
+				messages.add("カテゴリ「" + categoryName + "」は登録されていません。");
+			} else {
+				categoryIdList.add(category.getId());
+			}
+		}
+		form.setCategoryIdList(categoryIdList.isEmpty() ? null : categoryIdList);
+
+		List<Integer> holidayIdList = new ArrayList<>();
+		for (String weekdayName : split(record.get("holidays"))) {
+			Weekday weekday = taxonomy.getWeekdayByName(weekdayName);
+			if (weekday == null) {
+				messages.add("定休日「" + weekdayName + "」は曜日ではありません。");
+			} else {
+				holidayIdList.add(weekday.getId());
+			}
+		}
+		form.setHolidayIdList(holidayIdList);
+
+		for (ConstraintViolation<RestaurantRegisterForm> violation : validator.validate(form)) {
+			messages.add(violation.getMessage());
+		}
+		for (Map.Entry<String, Integer> maxLength : MAX_LENGTHS.entrySet()) {
+			String value = record.get(maxLength.getKey());
+			if (value != null && value.length() > maxLength.getValue()) {
+				messages.add(maxLength.getKey() + "は" + maxLength.getValue() + "文字以内で入力してください。");
+			}
+		}
+
+		if (!messages.isEmpty()) {
+			progress.addError(rowNumber, name, String.join(" ", new LinkedHashSet<>(messages)));
+			return null;
+		}
+		return new ImportRow(rowNumber, form);
+	}
+
+	// チャンク単位で書き込み、失敗した場合は原因の行を特定するため1件ずつ書き直す
+	private void write(List<ImportRow> chunk, RestaurantImportProgress progress) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		try {
+			transactionTemplate.executeWithoutResult(status -> insert(chunk));
+			progress.rowsImported(chunk.size());
+		} catch (DataAccessException e) {
+			if (chunk.size() == 1) {
+				ImportRow row = chunk.get(0);
+				progress.addError(row.rowNumber, row.form.getName(), e.getMostSpecificCause().getMessage());
+				return;
+			}
+			for (ImportRow row : chunk) {
+				write(List.of(row), progress);
+			}
+		}
+	}
+
+	// 店舗・カテゴリ・定休日・集計行をそれぞれ1回の複数行INSERTで書き込む
+	private void insert(List<ImportRow> rows) {
+		String values = String.join(",", Collections.nCopies(rows.size(), "(?, ?, ?, ?, ?, ?, ?, ?, ?)"));
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		jdbcTemplate.update(connection -> {
+			PreparedStatement statement = connection.prepareStatement(
+					"INSERT INTO restaurants (name, description, price, seats, postal_code, address, phone_number, "
+							+ "opening_time, closing_time) VALUES " + values,
+					Statement.RETURN_GENERATED_KEYS);
+			int index = 1;
+			for (ImportRow row : rows) {
+				RestaurantRegisterForm form = row.form;
+				statement.setString(index++, form.getName());
+				statement.setString(index++, form.getDescription());
+				statement.setInt(index++, form.getPrice());
+				statement.setInt(index++, form.getSeats());
+				statement.setString(index++, form.getPostalCode());
+				statement.setString(index++, form.getAddress());
+				statement.setString(index++, form.getPhoneNumber());
+				statement.setTime(index++, Time.valueOf(form.getOpenTime().toLocalTime()));
+				statement.setTime(index++, Time.valueOf(form.getCloseTime().toLocalTime()));
+			}
+			return statement;
+		}, keyHolder);
+
+		// 複数行INSERTの自動採番は行の順に返る
+		List<Object[]> categories = new ArrayList<>();
+		List<Object[]> holidays = new ArrayList<>();
+		List<Object[]> stats = new ArrayList<>();
+		Iterator<Map<String, Object>> keys = keyHolder.getKeyList().iterator();
+		for (ImportRow row : rows) {
+			int restaurantId = ((Number) keys.next().values().iterator().next()).intValue();
+			for (Integer categoryId : new LinkedHashSet<>(row.form.getCategoryIdList())) {
+				categories.add(new Object[] { restaurantId, categoryId });
+			}
+			for (Integer weekdayId : new LinkedHashSet<>(row.form.getHolidayIdList())) {
+				holidays.add(new Object[] { restaurantId, weekdayId });
+			}
+			stats.add(new Object[] { restaurantId });
+		}
+		insertMultiRow("restaurant_categories (restaurant_id, category_id)", "(?, ?)", categories);
+		insertMultiRow("restaurant_holidays (restaurant_id, weekday_id)", "(?, ?)", holidays);
+		insertMultiRow("restaurant_stats (restaurant_id)", "(?)", stats);
+	}
+
+	private void insertMultiRow(String table, String placeholders, List<Object[]> rows) {
+		if (rows.isEmpty()) {
+			return;
+		}
+		String values = String.join(",", Collections.nCopies(rows.size(), placeholders));
+		Object[] args = rows.stream().flatMap(Arrays::stream).toArray();
+		jdbcTemplate.update("INSERT INTO " + table + " VALUES " + values, args);
+	}
+
+	private static Integer parseInteger(String value, String label, List<String> messages) {
+		if (value == null || value.isBlank()) {
+			return null;
+		}
+		try {
+			return Integer.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			messages.add(label + "は整数で入力してください。");
+			return null;
+		}
+	}
+
+	// 「11:00」「11:00:00」のどちらでも受け付ける
+	private static HourMinute parseTime(String value, String label, List<String> messages) {
+		if (value == null || value.isBlank()) {
+			return null;
+		}
+		try {
+			return new HourMinute(LocalTime.parse(value.trim()));
+		} catch (DateTimeParseException e) {
+			messages.add(label + "は「HH:mm」の形式で入力してください。");
+			return null;
+		}
+	}
+
+	private static String csv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+		return value;
+	}
+
+	private static List<String> split(String value) {
+		if (value == null || value.isBlank()) {
+			return Collections.emptyList();
+		}
+		List<String> values = new ArrayList<>();
+		for (String part : value.split("[、,]")) {
+			if (!part.isBlank()) {
+				values.add(part.trim());
+			}
+		}
+		return values;
+	}
+
+	private static class ImportRow {
+		private final long rowNumber;
+		private final RestaurantRegisterForm form;
+
+		private ImportRow(long rowNumber, RestaurantRegisterForm form) {
+			this.rowNumber = rowNumber;
+			this.form = form;
+		}
+	}
+
+	// 1件ずつ「列名→値」で返す（終端ではnull）
+	private interface RecordReader extends Closeable {
+		Map<String, String> next() throws IOException;
+	}
+
+	// 1行目を列名とするCSV（ダブルクォートで囲んだ値の中のカンマ・改行に対応する）
+	private static class CsvReader implements RecordReader {
+		private final BufferedReader reader;
+		private final List<String> header;
+
+		private CsvReader(InputStream inputStream) throws IOException {
+			this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+			reader.mark(1);
+			if (reader.read() != '\uFEFF') {
+				reader.reset();
+			}
+			List<String> columns = readRecord();
+			if (columns == null) {
+				throw new IOException("ファイルが空です。");
+			}
+			this.header = columns.stream().map(String::trim).collect(Collectors.toList());
+		}
+
+		@Override
+		public Map<String, String> next() throws IOException {
+			List<String> values;
+			do {
+				values = readRecord();
+			} while (values != null && values.size() == 1 && values.get(0).isEmpty());
+			if (values == null) {
+				return null;
+			}
+			Map<String, String> record = new LinkedHashMap<>();
+			for (int i = 0; i < header.size(); i++) {
+				record.put(header.get(i), i < values.size() ? values.get(i) : null);
+			}
+			return record;
+		}
+
+		private List<String> readRecord() throws IOException {
+			int c = reader.read();
+			if (c == -1) {
+				return null;
+			}
+			List<String> values = new ArrayList<>();
+			StringBuilder value = new StringBuilder();
+			boolean quoted = false;
+			while (c != -1) {
+				if (quoted) {
+					if (c == '"') {
+						reader.mark(1);
+						int next = reader.read();
+						if (next == '"') {
+							value.append('"');
+						} else {
+							quoted = false;
+							reader.reset();
+						}
+					} else {
+						value.append((char) c);
+					}
+				} else if (c == '"') {
+					quoted = true;
+				} else if (c == ',') {
+					values.add(value.toString());
+					value.setLength(0);
+				} else if (c == '\n') {
+					break;
+				} else if (c != '\r') {
+					value.append((char) c);
+				}
+				c = reader.read();
+			}
+			values.add(value.toString());
+			return values;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+
+	// 1行1件のJSON（配列の値は「、」で連結して扱う）
+	private static class NdjsonReader implements RecordReader {
+		private final BufferedReader reader;
+		private final ObjectMapper objectMapper;
+
+		private NdjsonReader(InputStream inputStream, ObjectMapper objectMapper) {
+			this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+			this.objectMapper = objectMapper;
+		}
+
+		@Override
+		public Map<String, String> next() throws IOException {
+			String line;
+			do {
+				line = reader.readLine();
+			} while (line != null && line.isBlank());
+			if (line == null) {
+				return null;
+			}
+			Map<String, String> record = new LinkedHashMap<>();
+			JsonNode node;
+			try {
+				node = objectMapper.readTree(line);
+			} catch (IOException e) {
+				// 壊れた行は値なしとして扱い、必須項目のエラーとして報告する
+				return record;
+			}
+			Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				JsonNode value = field.getValue();
+				if (value.isArray()) {
+					Set<String> items = new LinkedHashSet<>();
+					value.forEach(item -> items.add(item.asText()));
+					record.put(field.getKey(), String.join(SEPARATOR, items));
+				} else {
+					record.put(field.getKey(), value.isNull() ? null : value.asText());
+				}
+			}
+			return record;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+}
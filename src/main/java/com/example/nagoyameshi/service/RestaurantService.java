@@ -3,54 +3,158 @@ package com.example.nagoyameshi.service;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.example.nagoyameshi.dto.RestaurantDTO;
+import com.example.nagoyameshi.cache.CatalogVersion;
+import com.example.nagoyameshi.cache.RestaurantSearchCache;
+import com.example.nagoyameshi.dto.CursorPage;
+import com.example.nagoyameshi.dto.RestaurantLabel;
+import com.example.nagoyameshi.dto.RestaurantSummary;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.RestaurantCategory;
 import com.example.nagoyameshi.entity.RestaurantHoliday;
+import com.example.nagoyameshi.event.RestaurantChangeEventPublisher;
 import com.example.nagoyameshi.form.RestaurantEditForm;
 import com.example.nagoyameshi.form.RestaurantRegisterForm;
 import com.example.nagoyameshi.repository.RestaurantCategoryRepository;
 import com.example.nagoyameshi.repository.RestaurantHolidayRepository;
 import com.example.nagoyameshi.repository.RestaurantRepository;
+import com.example.nagoyameshi.search.RestaurantEntry;
+import com.example.nagoyameshi.search.RestaurantFacets;
+import com.example.nagoyameshi.search.RestaurantFilterIndex;
+import com.example.nagoyameshi.search.RestaurantFilterResult;
+import com.example.nagoyameshi.search.RestaurantGeoIndex;
+import com.example.nagoyameshi.search.RestaurantMatcher;
+import com.example.nagoyameshi.search.RestaurantQuery;
+import com.example.nagoyameshi.search.RestaurantStatsIndex;
+import com.example.nagoyameshi.search.WeeklySchedule;
+import com.example.nagoyameshi.valueObject.RestaurantCursor;
 
 @Service
 public class RestaurantService {
+	// 先頭ページを取得する際のカーソル（すべての行がこれより後ろになる値）
+	private static final Timestamp FIRST_CREATED_AT = Timestamp.valueOf("9999-12-31 23:59:59");
+	private static final int FIRST_PRICE = Integer.MIN_VALUE;
+
 	private final RestaurantRepository restaurantRepository;
+	private final RestaurantCategoryRepository restaurantCategoryRepository;
+	private final RestaurantHolidayRepository restaurantHolidayRepository;
+	private final RestaurantFilterIndex restaurantFilterIndex;
+	private final RestaurantGeoIndex restaurantGeoIndex;
+	private final RestaurantChangeEventPublisher restaurantChangeEventPublisher;
+	private final RestaurantSearchCache restaurantSearchCache;
+	private final RestaurantStatsService restaurantStatsService;
+	private final CatalogVersion catalogVersion;
 
 	public RestaurantService(RestaurantRepository restaurantRepository,
 			RestaurantCategoryRepository restaurantCategoryRepository,
-			RestaurantHolidayRepository restaurantHolidayRepository) {
+			RestaurantHolidayRepository restaurantHolidayRepository,
+			RestaurantFilterIndex restaurantFilterIndex,
+			RestaurantGeoIndex restaurantGeoIndex,
+			RestaurantChangeEventPublisher restaurantChangeEventPublisher,
+			RestaurantSearchCache restaurantSearchCache,
+			RestaurantStatsService restaurantStatsService,
+			CatalogVersion catalogVersion) {
 		this.restaurantRepository = restaurantRepository;
+		this.restaurantCategoryRepository = restaurantCategoryRepository;
+		this.restaurantHolidayRepository = restaurantHolidayRepository;
+		this.restaurantFilterIndex = restaurantFilterIndex;
+		this.restaurantGeoIndex = restaurantGeoIndex;
+		this.restaurantChangeEventPublisher = restaurantChangeEventPublisher;
+		this.restaurantSearchCache = restaurantSearchCache;
+		this.restaurantStatsService = restaurantStatsService;
+		this.catalogVersion = catalogVersion;
 	}
 
 	public Restaurant getReferenceById(Integer id) {
 		return restaurantRepository.getReferenceById(id);
 	}
 
-	public Page<RestaurantDTO> getRestaurants(String keyword, String category, Integer price, String order,
-			Pageable pageable) {
+	public boolean exists(Integer id) {
+		return restaurantRepository.existsById(id);
+	}
+
+	public Page<RestaurantSummary> getRestaurants(RestaurantQuery query, String order, Pageable pageable) {
+		// キャッシュするのは並びとカテゴリ名等までで、評価・お気に入り数は表示ごとに複製して設定する
+		// 近くの起点同士で同じ結果を共有するため、起点は丸めてからキーにも検索にも使う
+		RestaurantQuery rounded = query.withRoundedOrigin();
+		Page<RestaurantSummary> page = restaurantSearchCache.get(rounded, order, pageable,
+				() -> searchRestaurants(rounded, order, pageable));
+		return page.map(summary -> withStats(summary.copy()));
+	}
+
+	private Page<RestaurantSummary> searchRestaurants(RestaurantQuery query, String order, Pageable pageable) {
+		// 絞り込みエンジンが使える場合は条件を組み合わせてメモリ上で絞り込み、表示分だけをDBから取得する
+		if (restaurantFilterIndex.isReady()) {
+			// 距離順の場合は格子索引で近い順に取り出し、絞り込み条件はビットマップで判定する
+			if (isByDistance(query, order)) {
+				RestaurantMatcher matcher = restaurantFilterIndex.matcher(query);
+				List<RestaurantCursor> hits = restaurantGeoIndex.nearest(query.getOrigin(), matcher, null,
+						pageable.getOffset(), pageable.getPageSize());
+				return new PageImpl<>(withDistances(findSummaries(hits), hits), pageable, matcher.count());
+			}
+			RestaurantFilterResult result = restaurantFilterIndex.page(query, order, pageable.getOffset(),
+					pageable.getPageSize());
+			return new PageImpl<>(findSummaries(result.getHits()), pageable, result.getTotal());
+		}
+
+		// 構築が終わるまではSQLで代用する（条件はキーワード・カテゴリ・ジャンル・価格のいずれか1つのみ）
+		String keyword = query.getKeyword();
+		String category = query.getCategories().isEmpty() ? null : query.getCategories().get(0);
+		String genre = query.getGenre();
+		Integer price = query.getMaxPrice();
 		Page<Restaurant> page;
-		if (keyword != null && !keyword.isEmpty()) {
+		if (keyword != null) {
 			page = findByKeyword(keyword, order, pageable);
-		} else if (category != null && !category.isEmpty()) {
+		} else if (category != null) {
 			page =  findByCategory(category, order, pageable);
+		} else if (genre != null) {
+			page =  findByGenre(genre, order, pageable);
 		} else if (price != null) {
 			page =  findByPrice(price, order, pageable);
 		} else {
 			page =  findAll(order, pageable);
 		}
 
-		return page.map(restaurant -> new RestaurantDTO(restaurant));
+		return withNames(page.map(RestaurantSummary::new));
+	}
+
+	private boolean isByDistance(RestaurantQuery query, String order) {
+		return query.getOrigin() != null && "distance".equals(order) && restaurantGeoIndex.isReady();
+	}
+
+	// 距離順の検索結果に起点からの距離（カーソルのキー）を設定する
+	private List<RestaurantSummary> withDistances(List<RestaurantSummary> summaries, List<RestaurantCursor> hits) {
+		if (hits.isEmpty() || summaries.isEmpty()) {
+			return summaries;
+		}
+		Map<Integer, Long> distances = hits.stream()
+				.collect(Collectors.toMap(RestaurantCursor::getId, RestaurantCursor::getKey));
+		for (RestaurantSummary summary : summaries) {
+			summary.setDistance(distances.get(summary.getId()));
+		}
+		return summaries;
+	}
+
+	// 検索結果のファセット件数（絞り込みエンジンの構築前はnull）
+	public RestaurantFacets getFacets(RestaurantQuery query) {
+		return restaurantFilterIndex.isReady() ? restaurantFilterIndex.facets(query) : null;
 	}
 
 	private Page<Restaurant> findByKeyword(String keyword, String order, Pageable pageable) {
@@ -63,11 +167,92 @@ public class RestaurantService {
 		}
 	}
 
+	// 並び順を保ったまま、絞り込み結果の店舗をまとめて取得する
+	private List<RestaurantSummary> findSummaries(List<RestaurantCursor> hits) {
+		return loadSummaries(hits.stream()
+				.map(RestaurantCursor::getId)
+				.collect(Collectors.toList()));
+	}
+
+	// 指定した店舗IDの順に、検索結果と同じ内容（カテゴリ名・定休日名・評価）と今営業中かを設定した一覧用データを取得する
+	// 件数によらず3回の問い合わせで済む（削除済みの店舗は除く）
+	public List<RestaurantSummary> getSummaries(List<Integer> ids) {
+		List<RestaurantSummary> summaries = loadSummaries(ids);
+		// 営業中かは時刻で変わるため、共有される検索結果やトップページには持たせずここでのみ設定する
+		int now = WeeklySchedule.slotOf(LocalDateTime.now());
+		for (RestaurantSummary summary : summaries) {
+			withStats(summary).setOpenNow(restaurantFilterIndex.isOpen(summary.getId(), now));
+		}
+		return summaries;
+	}
+
+	private List<RestaurantSummary> loadSummaries(List<Integer> ids) {
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		Map<Integer, RestaurantSummary> summaries = restaurantRepository.findSummariesByIdIn(ids).stream()
+				.collect(Collectors.toMap(RestaurantSummary::getId, Function.identity()));
+		List<RestaurantSummary> content = ids.stream()
+				.map(summaries::get)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+		return withNames(content);
+	}
+
+	// ページ内の店舗のカテゴリ名・定休日名をそれぞれ1回のIN検索で取得して設定する
+	// 評価・お気に入り数は検索結果キャッシュに残さないよう、ここでは設定しない（withStatsで設定する）
+	private List<RestaurantSummary> withNames(List<RestaurantSummary> summaries) {
+		if (summaries.isEmpty()) {
+			return summaries;
+		}
+		List<Integer> ids = summaries.stream()
+				.map(RestaurantSummary::getId)
+				.collect(Collectors.toList());
+
+		Map<Integer, List<String>> categoryNames = groupNames(
+				restaurantCategoryRepository.findCategoryNamesByRestaurantIdIn(ids));
+		Map<Integer, List<String>> holidayNames = groupNames(
+				restaurantHolidayRepository.findWeekdayNamesByRestaurantIdIn(ids));
+		for (RestaurantSummary summary : summaries) {
+			summary.setCategoryNames(categoryNames.getOrDefault(summary.getId(), new ArrayList<>()));
+			summary.setHolidayNames(holidayNames.getOrDefault(summary.getId(), new ArrayList<>()));
+		}
+		return summaries;
+	}
+
+	// 今の評価・お気に入り数をメモリ上の集計から設定する
+	private RestaurantSummary withStats(RestaurantSummary summary) {
+		summary.setRating(restaurantStatsService.getAverageScore(summary.getId()),
+				restaurantStatsService.getReviewCount(summary.getId()));
+		summary.setFavoriteCount(restaurantStatsService.getFavoriteCount(summary.getId()));
+		return summary;
+	}
+
+	private Page<RestaurantSummary> withNames(Page<RestaurantSummary> page) {
+		withNames(page.getContent());
+		return page;
+	}
+
+	private static Map<Integer, List<String>> groupNames(List<RestaurantLabel> labels) {
+		return labels.stream()
+				.collect(Collectors.groupingBy(RestaurantLabel::getRestaurantId,
+						Collectors.mapping(RestaurantLabel::getName, Collectors.toList())));
+	}
+
 	private Page<Restaurant> findByCategory(String category, String order, Pageable pageable) {
 		if ("priceAsc".equals(order)) {
-			return restaurantRepository.findByCategoryLikeOrderByPriceAsc("%" + category + "%", pageable);
+			return restaurantRepository.findByCategoryNameOrderByPriceAsc(category, pageable);
+		} else {
+			return restaurantRepository.findByCategoryNameOrderByCreatedAtDesc(category, pageable);
+		}
+	}
+
+	private Page<Restaurant> findByGenre(String genre, String order, Pageable pageable) {
+		if ("priceAsc".equals(order)) {
+			return restaurantRepository.findByGenreNameOrderByPriceAsc(genre, pageable);
 		} else {
-			return restaurantRepository.findByCategoryLikeOrderByCreatedAtDesc("%" + category + "%", pageable);
+			return restaurantRepository.findByGenreNameOrderByCreatedAtDesc(genre, pageable);
 		}
 	}
 
@@ -82,20 +267,121 @@ public class RestaurantService {
 	private Page<Restaurant> findAll(String order, Pageable pageable) {
 		if ("priceAsc".equals(order)) {
 			return restaurantRepository.findAllByOrderByPriceAsc(pageable);
+		} else if (RestaurantStatsIndex.RATING_DESC.equals(order)) {
+			return restaurantRepository.findAllOrderByAverageScoreDesc(pageable);
+		} else if (RestaurantStatsIndex.REVIEW_COUNT_DESC.equals(order)) {
+			return restaurantRepository.findAllOrderByReviewCountDesc(pageable);
+		} else if (RestaurantStatsIndex.FAVORITE_COUNT_DESC.equals(order)) {
+			return restaurantRepository.findAllOrderByFavoriteCountDesc(pageable);
 		} else {
 			return restaurantRepository.findAllByOrderByCreatedAtDesc(pageable);
 		}
 	}
 
-	public Page<RestaurantDTO> getRestaurants(Pageable pageable, String keyword) {
-		Page<Restaurant> pages;
+	// キーセットページング：カーソル（前ページ最後の行の並び替えキーとID）より後ろをsize件取得する
+	public CursorPage<RestaurantSummary> getRestaurants(RestaurantQuery query, String order, String cursor,
+			int size) {
+		RestaurantCursor after = RestaurantCursor.decode(cursor);
+
+		// 絞り込みエンジンが使える場合は(並び替えキー, ID)の組をそのままカーソルにする
+		if (restaurantFilterIndex.isReady()) {
+			// 次ページの有無を判定するため1件多く取得する
+			boolean byDistance = isByDistance(query, order);
+			List<RestaurantCursor> hits = byDistance
+					? restaurantGeoIndex.nearest(query.getOrigin(), restaurantFilterIndex.matcher(query), after, 0,
+							size + 1)
+					: restaurantFilterIndex.seek(query, order, after, size + 1).getHits();
+			String nextCursor = hits.size() > size ? hits.get(size - 1).encode() : null;
+			List<RestaurantCursor> pageHits = hits.subList(0, Math.min(size, hits.size()));
+			List<RestaurantSummary> content = findSummaries(pageHits);
+			content.forEach(this::withStats);
+			return new CursorPage<>(byDistance ? withDistances(content, pageHits) : content, nextCursor);
+		}
+
+		String keyword = query.getKeyword();
+		String category = query.getCategories().isEmpty() ? null : query.getCategories().get(0);
+		String genre = query.getGenre();
+		Integer price = query.getMaxPrice();
+		Pageable limit = PageRequest.ofSize(size + 1);
+		List<Restaurant> restaurants;
+		if (keyword != null) {
+			restaurants = "priceAsc".equals(order)
+					? restaurantRepository.findByKeywordAfterOrderByPriceAsc("%" + keyword + "%",
+							priceOf(after), idOf(after, order), limit)
+					: restaurantRepository.findByKeywordAfterOrderByCreatedAtDesc("%" + keyword + "%",
+							createdAtOf(after), idOf(after, order), limit);
+		} else if (category != null) {
+			restaurants = "priceAsc".equals(order)
+					? restaurantRepository.findByCategoryAfterOrderByPriceAsc(category,
+							priceOf(after), idOf(after, order), limit)
+					: restaurantRepository.findByCategoryAfterOrderByCreatedAtDesc(category,
+							createdAtOf(after), idOf(after, order), limit);
+		} else if (genre != null) {
+			restaurants = "priceAsc".equals(order)
+					? restaurantRepository.findByGenreAfterOrderByPriceAsc(genre,
+							priceOf(after), idOf(after, order), limit)
+					: restaurantRepository.findByGenreAfterOrderByCreatedAtDesc(genre,
+							createdAtOf(after), idOf(after, order), limit);
+		} else if (price != null) {
+			restaurants = "priceAsc".equals(order)
+					? restaurantRepository.findByPriceLessThanEqualAfterOrderByPriceAsc(price,
+							priceOf(after), idOf(after, order), limit)
+					: restaurantRepository.findByPriceLessThanEqualAfterOrderByCreatedAtDesc(price,
+							createdAtOf(after), idOf(after, order), limit);
+		} else {
+			restaurants = "priceAsc".equals(order)
+					? restaurantRepository.findAfterOrderByPriceAsc(priceOf(after), idOf(after, order), limit)
+					: restaurantRepository.findAfterOrderByCreatedAtDesc(createdAtOf(after), idOf(after, order),
+							limit);
+		}
+
+		String nextCursor = null;
+		if (restaurants.size() > size) {
+			restaurants = restaurants.subList(0, size);
+			Restaurant last = restaurants.get(size - 1);
+			long key = "priceAsc".equals(order) ? last.getPrice() : last.getCreatedAt().getTime();
+			nextCursor = new RestaurantCursor(key, last.getId()).encode();
+		}
+
+		List<RestaurantSummary> summaries = restaurants.stream()
+				.map(RestaurantSummary::new)
+				.collect(Collectors.toList());
+		withNames(summaries).forEach(this::withStats);
+		return new CursorPage<>(summaries, nextCursor);
+	}
+
+	private Timestamp createdAtOf(RestaurantCursor after) {
+		return after != null ? new Timestamp(after.getKey()) : FIRST_CREATED_AT;
+	}
+
+	private Integer priceOf(RestaurantCursor after) {
+		return after != null ? (int) after.getKey() : FIRST_PRICE;
+	}
+
+	private Integer idOf(RestaurantCursor after, String order) {
+		if (after != null) {
+			return after.getId();
+		}
+		return "priceAsc".equals(order) ? 0 : Integer.MAX_VALUE;
+	}
+
+	// 新着10件（カテゴリ名・定休日名を解決済み）
+	public List<RestaurantSummary> getNewRestaurants() {
+		List<RestaurantSummary> summaries = restaurantRepository.findTop10ByOrderByCreatedAtDesc().stream()
+				.map(RestaurantSummary::new)
+				.collect(Collectors.toList());
+		return withNames(summaries);
+	}
+
+	public Page<RestaurantSummary> getRestaurants(Pageable pageable, String keyword) {
+		Page<RestaurantSummary> pages;
 		if (keyword != null && !keyword.isEmpty()) {
-			pages = restaurantRepository.findByNameLike("%" + keyword + "%", pageable);
+			pages = restaurantRepository.findSummariesByNameLike("%" + keyword + "%", pageable);
 		} else {
-			pages = restaurantRepository.findAll(pageable);
+			pages = restaurantRepository.findAllSummaries(pageable);
 		}
 
-		return pages.map(restaurant -> new RestaurantDTO(restaurant));
+		return withNames(pages);
 	}
 
 	@Transactional
@@ -104,6 +390,11 @@ public class RestaurantService {
 		restaurant.setImageName(getImageFile(restaurantRegisterForm.getImageFile()));
 
 		restaurantRepository.save(restaurant);
+		restaurantStatsService.createIfAbsent(restaurant.getId());
+		restaurantChangeEventPublisher.publishSaved(
+				new RestaurantEntry(restaurant, restaurantRegisterForm.getCategories(),
+						restaurantRegisterForm.getHolidays()));
+		catalogVersion.bump();
 
 		return restaurant;
 	}
@@ -124,6 +415,10 @@ public class RestaurantService {
 		restaurant.setCategories(restaurantCategoryList);
 
 		restaurantRepository.save(restaurant);
+		restaurantChangeEventPublisher.publishSaved(
+				new RestaurantEntry(restaurant, restaurantEditForm.getCategories(),
+						restaurantEditForm.getHolidays()));
+		catalogVersion.bump();
 	}
 
 	// UUIDを使って生成したファイル名を返す
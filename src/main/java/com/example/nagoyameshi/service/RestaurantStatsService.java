@@ -0,0 +1,184 @@
+package com.example.nagoyameshi.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.nagoyameshi.dto.RestaurantStatsRepairResult;
+
+import com.example.nagoyameshi.entity.RestaurantStats;
+import com.example.nagoyameshi.repository.RestaurantStatsRepository;
+import com.example.nagoyameshi.search.RestaurantStatsIndex;
+
+// レビュー・お気に入り・予約の登録や削除に合わせてrestaurant_statsを差分で更新する
+@Service
+public class RestaurantStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantStatsService.class);
+    // RestaurantStatsRepository.findStoredAndActual の列の並び
+    private static final String[] STATS_COLUMNS = { "review_count", "score_sum", "score1_count", "score2_count",
+            "score3_count", "score4_count", "score5_count", "favorite_count", "reservation_count" };
+
+    private final RestaurantStatsRepository restaurantStatsRepository;
+    private final RestaurantStatsIndex restaurantStatsIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    public RestaurantStatsService(RestaurantStatsRepository restaurantStatsRepository,
+            RestaurantStatsIndex restaurantStatsIndex, PlatformTransactionManager transactionManager) {
+        this.restaurantStatsRepository = restaurantStatsRepository;
+        this.restaurantStatsIndex = restaurantStatsIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional
+    public void createIfAbsent(Integer restaurantId) {
+        restaurantStatsRepository.insertIfAbsent(restaurantId);
+        refreshAfterCommit(restaurantId);
+    }
+
+    @Transactional
+    public void reviewAdded(Integer restaurantId, int score) {
+        addReview(restaurantId, 1, score, 1);
+    }
+
+    @Transactional
+    public void reviewRemoved(Integer restaurantId, int score) {
+        addReview(restaurantId, -1, score, -1);
+    }
+
+    // 点数が変わらない場合も、詳細ページのETagを変えるため読み直して更新時刻を進める
+    @Transactional
+    public void reviewScoreChanged(Integer restaurantId, int oldScore, int newScore) {
+        if (oldScore == newScore) {
+            refreshAfterCommit(restaurantId);
+            return;
+        }
+        int[] histogram = new int[6];
+        histogram[oldScore]--;
+        histogram[newScore]++;
+        restaurantStatsRepository.insertIfAbsent(restaurantId);
+        restaurantStatsRepository.addReviewDelta(restaurantId, 0, newScore - oldScore,
+                histogram[1], histogram[2], histogram[3], histogram[4], histogram[5]);
+        refreshAfterCommit(restaurantId);
+    }
+
+    @Transactional
+    public void favoriteAdded(Integer restaurantId) {
+        addFavorite(restaurantId, 1);
+    }
+
+    @Transactional
+    public void favoriteRemoved(Integer restaurantId) {
+        addFavorite(restaurantId, -1);
+    }
+
+    @Transactional
+    public void reservationAdded(Integer restaurantId) {
+        restaurantStatsRepository.insertIfAbsent(restaurantId);
+        restaurantStatsRepository.addReservationDelta(restaurantId, 1);
+        refreshAfterCommit(restaurantId);
+    }
+
+    // 集計テーブルのレビュー数（COUNT(*)を使わずメモリ上の値を返す）
+    public long getReviewCount(Integer restaurantId) {
+        RestaurantStats stats = restaurantStatsIndex.get(restaurantId);
+        return stats != null ? stats.getReviewCount() : 0;
+    }
+
+    // 集計値を一から数え直し、ずれを報告する（repairがtrueならずれた店舗を上書きする）
+    // 店舗ごとに別のトランザクションで直すため、途中で失敗しても直し終えた店舗はそのまま残る
+    public RestaurantStatsRepairResult checkDrift(boolean repair) {
+        List<Object[]> rows = restaurantStatsRepository.findStoredAndActual();
+        List<String> drifts = new ArrayList<>();
+        int repaired = 0;
+
+        for (Object[] row : rows) {
+            Integer restaurantId = ((Number) row[0]).intValue();
+            String drift = describeDrift(restaurantId, row);
+            if (drift == null) {
+                continue;
+            }
+            drifts.add(drift);
+            if (!repair) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    restaurantStatsRepository.insertIfAbsent(restaurantId);
+                    restaurantStatsRepository.recompute(restaurantId);
+                    refreshAfterCommit(restaurantId);
+                });
+                repaired++;
+            } catch (RuntimeException e) {
+                logger.warn("店舗ID {} の集計を直せませんでした", restaurantId, e);
+            }
+        }
+        return new RestaurantStatsRepairResult(rows.size(), drifts, repaired);
+    }
+
+    // 保存値と実際の値が異なる列を並べる（ずれがなければnull）
+    private static String describeDrift(Integer restaurantId, Object[] row) {
+        if (row[1] == null) {
+            return "店舗ID " + restaurantId + ": 集計行なし";
+        }
+        StringBuilder drift = new StringBuilder();
+        for (int i = 0; i < STATS_COLUMNS.length; i++) {
+            long stored = ((Number) row[1 + i]).longValue();
+            long actual = ((Number) row[1 + STATS_COLUMNS.length + i]).longValue();
+            if (stored != actual) {
+                drift.append(drift.length() == 0 ? "" : ", ")
+                        .append(STATS_COLUMNS[i]).append(' ').append(stored).append('→').append(actual);
+            }
+        }
+        return drift.length() == 0 ? null : "店舗ID " + restaurantId + ": " + drift;
+    }
+
+    // 集計テーブルのお気に入り数（メモリ上の値を返す）
+    public long getFavoriteCount(Integer restaurantId) {
+        RestaurantStats stats = restaurantStatsIndex.get(restaurantId);
+        return stats != null ? stats.getFavoriteCount() : 0;
+    }
+
+    // 集計テーブルの平均点（レビューがなければnull）
+    public BigDecimal getAverageScore(Integer restaurantId) {
+        RestaurantStats stats = restaurantStatsIndex.get(restaurantId);
+        return stats != null && stats.getReviewCount() > 0 ? stats.getAverageScore() : null;
+    }
+
+    private void addReview(Integer restaurantId, int count, int score, int sign) {
+        int[] histogram = new int[6];
+        histogram[score] += sign;
+        restaurantStatsRepository.insertIfAbsent(restaurantId);
+        restaurantStatsRepository.addReviewDelta(restaurantId, count, sign * score,
+                histogram[1], histogram[2], histogram[3], histogram[4], histogram[5]);
+        refreshAfterCommit(restaurantId);
+    }
+
+    private void addFavorite(Integer restaurantId, int delta) {
+        restaurantStatsRepository.insertIfAbsent(restaurantId);
+        restaurantStatsRepository.addFavoriteDelta(restaurantId, delta);
+        refreshAfterCommit(restaurantId);
+    }
+
+    // ロールバックされた集計をメモリに反映しないよう、コミット後に読み直す
+    private void refreshAfterCommit(Integer restaurantId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    restaurantStatsIndex.refresh(restaurantId);
+                }
+            });
+        } else {
+            restaurantStatsIndex.refresh(restaurantId);
+        }
+    }
+}
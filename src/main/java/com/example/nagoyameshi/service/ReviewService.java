@@ -2,23 +2,33 @@ package com.example.nagoyameshi.service;
 
 import java.util.List;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.nagoyameshi.cache.UserRestaurantMarks;
+import com.example.nagoyameshi.dto.CursorPage;
+import com.example.nagoyameshi.dto.ReviewView;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.Review;
 import com.example.nagoyameshi.entity.User;
 import com.example.nagoyameshi.form.ReviewEditForm;
 import com.example.nagoyameshi.form.ReviewRegisterForm;
 import com.example.nagoyameshi.repository.ReviewRepository;
+import com.example.nagoyameshi.valueObject.CreatedAtCursor;
 
 //ReviewRepositoryに取得したidを渡す
 @Service
 public class ReviewService {
 	private final ReviewRepository reviewRepository;
+	private final RestaurantStatsService restaurantStatsService;
+	private final UserRestaurantMarks userRestaurantMarks;
 
-	public ReviewService(ReviewRepository reviewRepository) {
+	public ReviewService(ReviewRepository reviewRepository, RestaurantStatsService restaurantStatsService,
+			UserRestaurantMarks userRestaurantMarks) {
 		this.reviewRepository = reviewRepository;
+		this.restaurantStatsService = restaurantStatsService;
+		this.userRestaurantMarks = userRestaurantMarks;
 	}
 
 	//Idを取得してレビューを新規投稿する
@@ -32,21 +42,36 @@ public class ReviewService {
 		review.setContent(reviewRegisterForm.getContent());
 
 		reviewRepository.save(review);
+		restaurantStatsService.reviewAdded(restaurant.getId(), review.getScore());
+		userRestaurantMarks.reviewAddedAfterCommit(user.getId(), restaurant.getId());
 	}
 
 	//Idを取得してレビュー内容を更新する
 	@Transactional
 	public void update(ReviewEditForm reviewEditForm) {
 		Review review = reviewRepository.getReferenceById(reviewEditForm.getId());
+		int oldScore = review.getScore();
 
 		review.setScore(reviewEditForm.getScore());
 		review.setContent(reviewEditForm.getContent());
 
 		reviewRepository.save(review);
+		restaurantStatsService.reviewScoreChanged(review.getRestaurant().getId(), oldScore, review.getScore());
 	}
 
+	//レビューを削除する
+	@Transactional
+	public void delete(Integer reviewId) {
+		reviewRepository.findById(reviewId).ifPresent(review -> {
+			reviewRepository.delete(review);
+			restaurantStatsService.reviewRemoved(review.getRestaurant().getId(), review.getScore());
+			userRestaurantMarks.reviewRemovedAfterCommit(review.getUser().getId(), review.getRestaurant().getId());
+		});
+	}
+
+	//ユーザーごとの店舗IDの集合で判定する（問い合わせは最初の1回だけ）
 	public boolean hasUserAlreadyReviewed(Restaurant restaurant, User user) {
-		return reviewRepository.findByRestaurantAndUser(restaurant, user) != null;
+		return userRestaurantMarks.get(user.getId()).isReviewed(restaurant.getId());
 	}
 
 	//投稿されたレビューを投稿された順に並べて、最新の6件のレビューを取得する。
@@ -54,6 +79,29 @@ public class ReviewService {
 		return reviewRepository.findTop6ByRestaurantOrderByCreatedAtDesc(restaurant);
 	}
 
+	//店舗のレビューを新しい順にsize件ずつ取得する（件数は数えず、1件多く取得して次があるかを判定する）
+	public CursorPage<ReviewView> getReviewFeed(Integer restaurantId, String cursor, int size) {
+		CreatedAtCursor after = CreatedAtCursor.decode(cursor);
+		if (after == null) {
+			after = CreatedAtCursor.FIRST;
+		}
+		List<ReviewView> reviews = reviewRepository.findViewsByRestaurantIdBefore(restaurantId,
+				after.getCreatedAt(), after.getId(), PageRequest.ofSize(size + 1));
+
+		String nextCursor = null;
+		if (reviews.size() > size) {
+			reviews = reviews.subList(0, size);
+			ReviewView last = reviews.get(size - 1);
+			nextCursor = new CreatedAtCursor(last.getCreatedAt(), last.getId()).encode();
+		}
+		return new CursorPage<>(reviews, nextCursor);
+	}
+
+	//一覧に表示するレビュー数（集計テーブルの値を使い、COUNT(*)を発行しない）
+	public long getReviewCount(Restaurant restaurant) {
+		return restaurantStatsService.getReviewCount(restaurant.getId());
+	}
+
 	//指定された店舗とユーザーに関連するレビューを取得
 	public long countByRestaurant(Restaurant restaurant) {
 		return reviewRepository.countByRestaurant(restaurant);
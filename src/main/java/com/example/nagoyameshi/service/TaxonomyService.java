@@ -0,0 +1,82 @@
+package com.example.nagoyameshi.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.nagoyameshi.dto.Taxonomy;
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Genre;
+import com.example.nagoyameshi.entity.Weekday;
+import com.example.nagoyameshi.event.RestaurantCatalogReloadEvent;
+import com.example.nagoyameshi.repository.CategoryRepository;
+import com.example.nagoyameshi.repository.GenreRepository;
+import com.example.nagoyameshi.repository.WeekdayRepository;
+
+// ジャンル・カテゴリ・曜日のマスタをメモリ上に保持する（更新時は読み直したスナップショットに丸ごと差し替える）
+@Service
+public class TaxonomyService {
+    private final GenreRepository genreRepository;
+    private final CategoryRepository categoryRepository;
+    private final WeekdayRepository weekdayRepository;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Taxonomy taxonomy;
+
+    public TaxonomyService(GenreRepository genreRepository, CategoryRepository categoryRepository,
+            WeekdayRepository weekdayRepository) {
+        this.genreRepository = genreRepository;
+        this.categoryRepository = categoryRepository;
+        this.weekdayRepository = weekdayRepository;
+    }
+
+    public Taxonomy get() {
+        Taxonomy current = taxonomy;
+        if (current == null) {
+            // 起動イベントより前に呼ばれた場合はその場で読み込む
+            synchronized (this) {
+                current = taxonomy;
+                if (current == null) {
+                    current = load();
+                    taxonomy = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, RestaurantCatalogReloadEvent.class })
+    public synchronized void reload() {
+        taxonomy = load();
+    }
+
+    // ジャンル・カテゴリを更新したトランザクションのコミット後に読み直す（ロールバックされた内容を載せないため）
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    private Taxonomy load() {
+        List<Genre> genres = genreRepository.findAll();
+        List<Category> categories = categoryRepository.findAll();
+        List<Weekday> weekdays = weekdayRepository.findAll();
+        genres.sort(Comparator.comparing(Genre::getId));
+        categories.sort(Comparator.comparing(Category::getId));
+        weekdays.sort(Comparator.comparing(Weekday::getId));
+        return new Taxonomy(version.incrementAndGet(), genres, categories, weekdays);
+    }
+}
@@ -6,22 +6,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.nagoyameshi.entity.Weekday;
-import com.example.nagoyameshi.repository.WeekdayRepository;
 
 @Service
 public class WeekdayService {
-    private final WeekdayRepository weekdayRepository;
+    private final TaxonomyService taxonomyService;
 
     @Autowired
-    public WeekdayService(WeekdayRepository weekdayRepository) {
-        this.weekdayRepository = weekdayRepository;
+    public WeekdayService(TaxonomyService taxonomyService) {
+        this.taxonomyService = taxonomyService;
     }
 
+    // 曜日はメモリ上のスナップショットから返す
     public List<Weekday> findAllById(List<Integer> idList){
-        return weekdayRepository.findAllById(idList);
+        return taxonomyService.get().getWeekdays(idList);
     }
 
     public List<Weekday> findAll() {
-        return weekdayRepository.findAll();
+        return taxonomyService.get().getWeekdays();
     }
 }
@@ -0,0 +1,48 @@
+package com.example.nagoyameshi.valueObject;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+// 新着順のキーセットページング用のカーソル（最後に表示した行の作成日時とIDの組、レビュー・お気に入りで使う）
+public class CreatedAtCursor {
+    // 先頭ページを取得する際のカーソル（すべての行がこれより古くなる値）
+    public static final CreatedAtCursor FIRST = new CreatedAtCursor(Timestamp.valueOf("9999-12-31 23:59:59"),
+            Integer.MAX_VALUE);
+
+    private final Timestamp createdAt;
+    private final int id;
+
+    public CreatedAtCursor(Timestamp createdAt, int id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // URLに埋め込める不透明な文字列に変換する
+    public String encode() {
+        String raw = createdAt.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 不正な値の場合はnullを返し、先頭ページとして扱う
+    public static CreatedAtCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            return new CreatedAtCursor(new Timestamp(Long.parseLong(parts[0])), Integer.parseInt(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.nagoyameshi.valueObject;
+
+// 緯度・経度の組
+public class GeoPoint {
+    // 地球の平均半径（メートル）
+    private static final double EARTH_RADIUS = 6_371_000;
+
+    private final double latitude;
+    private final double longitude;
+
+    public GeoPoint(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    // 2点間の距離（メートル、ハバーサイン公式）
+    public double distanceTo(GeoPoint other) {
+        double dLat = Math.toRadians(other.latitude - latitude);
+        double dLng = Math.toRadians(other.longitude - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(other.latitude))
+                        * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(a));
+    }
+
+    // 小数第4位（約10m）に丸めた地点（検索結果をキャッシュする単位）
+    public GeoPoint rounded() {
+        return new GeoPoint(Math.round(latitude * 10_000) / 10_000.0, Math.round(longitude * 10_000) / 10_000.0);
+    }
+
+    // 緯度・経度として妥当な範囲かどうか
+    public static boolean isValid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+}
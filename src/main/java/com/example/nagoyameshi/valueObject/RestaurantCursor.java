@@ -0,0 +1,43 @@
+package com.example.nagoyameshi.valueObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// キーセットページング用のカーソル（並び替えキーと店舗IDの組）
+public class RestaurantCursor {
+    private final long key;
+    private final int id;
+
+    public RestaurantCursor(long key, int id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    // URLに埋め込める不透明な文字列に変換する
+    public String encode() {
+        String raw = key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 不正な値の場合はnullを返し、先頭ページとして扱う
+    public static RestaurantCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            return new RestaurantCursor(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+}
@@ -312,3 +312,19 @@ INSERT IGNORE INTO `restaurant_holidays` (`restaurant_holiday_id`,`restaurant_id
 -- 41, ラーメン一番（金曜日）→ 金曜日
 INSERT IGNORE INTO `restaurant_holidays` (`restaurant_holiday_id`,`restaurant_id`, `weekday_id`) VALUES
 (28,41, 5);
+
+-- restaurant_statsテーブル（未作成の店舗だけ既存のレビュー・お気に入り・予約から集計して作る）
+INSERT IGNORE INTO restaurant_stats (restaurant_id, review_count, score_sum, score1_count, score2_count, score3_count, score4_count, score5_count, average_score, favorite_count, reservation_count)
+SELECT r.restaurant_id,
+   COALESCE(rv.review_count, 0), COALESCE(rv.score_sum, 0),
+   COALESCE(rv.score1_count, 0), COALESCE(rv.score2_count, 0), COALESCE(rv.score3_count, 0), COALESCE(rv.score4_count, 0), COALESCE(rv.score5_count, 0),
+   COALESCE(rv.score_sum / rv.review_count, 0),
+   (SELECT COUNT(*) FROM favorites f WHERE f.restaurant_id = r.restaurant_id),
+   (SELECT COUNT(*) FROM reservations rs WHERE rs.restaurant_id = r.restaurant_id)
+FROM restaurants r
+LEFT JOIN (
+   SELECT restaurant_id, COUNT(*) AS review_count, SUM(score) AS score_sum,
+      SUM(score = 1) AS score1_count, SUM(score = 2) AS score2_count, SUM(score = 3) AS score3_count,
+      SUM(score = 4) AS score4_count, SUM(score = 5) AS score5_count
+   FROM reviews GROUP BY restaurant_id
+) rv ON rv.restaurant_id = r.restaurant_id;
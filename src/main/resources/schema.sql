@@ -58,7 +58,7 @@ CREATE TABLE IF NOT EXISTS `restaurant_categories` (
    `category_id` INT NULL DEFAULT NULL,
    PRIMARY KEY (`restaurant_category_id`) USING BTREE,
    UNIQUE INDEX `uq_restaurant_category` (`restaurant_id`, `category_id`) USING BTREE,
-   INDEX `fk_category` (`category_id`) USING BTREE,
+   INDEX `fk_category` (`category_id`, `restaurant_id`) USING BTREE,  -- カテゴリ絞り込み用のカバリングインデックス
    CONSTRAINT `fk_category` FOREIGN KEY (`category_id`) REFERENCES `categories` (`category_id`)  ,
    CONSTRAINT `fk_restaurant` FOREIGN KEY (`restaurant_id`) REFERENCES `restaurants` (`restaurant_id`)
 );
@@ -123,3 +123,78 @@ CREATE TABLE IF NOT EXISTS favorites (
    FOREIGN KEY (restaurant_id) REFERENCES restaurants (restaurant_id),
    FOREIGN KEY (user_id) REFERENCES users (id)
 );
+
+-- 店舗ごとのレビュー・お気に入り・予約の集計（レビュー等の登録・更新・削除のたびに差分で更新する読み取り専用モデル）
+CREATE TABLE IF NOT EXISTS restaurant_stats (
+   restaurant_id INT NOT NULL PRIMARY KEY,
+   review_count INT NOT NULL DEFAULT 0,
+   score_sum INT NOT NULL DEFAULT 0,
+   score1_count INT NOT NULL DEFAULT 0,
+   score2_count INT NOT NULL DEFAULT 0,
+   score3_count INT NOT NULL DEFAULT 0,
+   score4_count INT NOT NULL DEFAULT 0,
+   score5_count INT NOT NULL DEFAULT 0,
+   average_score DECIMAL(3, 2) NOT NULL DEFAULT 0,
+   favorite_count INT NOT NULL DEFAULT 0,
+   reservation_count INT NOT NULL DEFAULT 0,
+   updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+   INDEX idx_restaurant_stats_average_score (average_score, restaurant_id),  -- 評価が高い順
+   INDEX idx_restaurant_stats_review_count (review_count, restaurant_id),  -- レビューが多い順
+   INDEX idx_restaurant_stats_favorite_count (favorite_count, restaurant_id),  -- お気に入りが多い順
+   FOREIGN KEY (restaurant_id) REFERENCES restaurants (restaurant_id) ON DELETE CASCADE
+);
+
+-- 既存のテーブルにも後から追加したインデックスを作成する
+-- （CREATE TABLE IF NOT EXISTSは既存のテーブルを変更せず、MySQLにはCREATE INDEX IF NOT EXISTSがないため、
+--   information_schemaで未作成の場合のみ実行し、作成済みであれば何もしない）
+
+-- 新着順のキーセットページング用
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+      'CREATE INDEX `idx_restaurants_created_at` ON `restaurants` (`created_at`, `restaurant_id`)',
+      'DO 0')
+   FROM information_schema.statistics
+   WHERE table_schema = DATABASE() AND table_name = 'restaurants' AND index_name = 'idx_restaurants_created_at');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 価格順のキーセットページング用
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+      'CREATE INDEX `idx_restaurants_price` ON `restaurants` (`price`, `restaurant_id`)',
+      'DO 0')
+   FROM information_schema.statistics
+   WHERE table_schema = DATABASE() AND table_name = 'restaurants' AND index_name = 'idx_restaurants_price');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 店舗ごとのレビューの新着順のキーセットページング用
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+      'CREATE INDEX idx_reviews_restaurant_created_at ON reviews (restaurant_id, created_at, id)',
+      'DO 0')
+   FROM information_schema.statistics
+   WHERE table_schema = DATABASE() AND table_name = 'reviews' AND index_name = 'idx_reviews_restaurant_created_at');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ユーザーごとのお気に入りの新着順のキーセットページング用
+SET @ddl = (SELECT IF(COUNT(*) = 0,
+      'CREATE INDEX idx_favorites_user_created_at ON favorites (user_id, created_at, id)',
+      'DO 0')
+   FROM information_schema.statistics
+   WHERE table_schema = DATABASE() AND table_name = 'favorites' AND index_name = 'idx_favorites_user_created_at');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- カテゴリ絞り込み用のカバリングインデックス（以前のfk_categoryはcategory_idのみ）
+-- 外部キーが使うインデックスのため、削除と作成を1つのALTER TABLEで行う
+SET @ddl = (SELECT IF(COUNT(*) = 1,
+      'ALTER TABLE `restaurant_categories` DROP INDEX `fk_category`, ADD INDEX `fk_category` (`category_id`, `restaurant_id`) USING BTREE',
+      'DO 0')
+   FROM information_schema.statistics
+   WHERE table_schema = DATABASE() AND table_name = 'restaurant_categories' AND index_name = 'fk_category');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,38 @@
+// お気に入りの追加・解除をページを移動せずに行う
+// 切り替え後の状態（favorite）を送るため、二度押しで同じリクエストが届いても結果は変わらない
+// （JavaScriptが使えない場合や失敗した場合は通常の送信で切り替える）
+document.querySelectorAll('[data-favorite-toggle]').forEach(form => {
+  const button = form.querySelector('button');
+  const count = document.querySelector('[data-favorite-count]');
+
+  form.addEventListener('submit', async event => {
+    event.preventDefault();
+    if (button.disabled) {
+      return;
+    }
+    button.disabled = true;
+
+    let result;
+    try {
+      const response = await fetch(form.action, {
+        method: 'POST',
+        headers: { Accept: 'application/json' },
+        body: new FormData(form)
+      });
+      if (!response.ok || !response.headers.get('Content-Type')?.includes('application/json')) {
+        throw new Error(response.statusText);
+      }
+      result = await response.json();
+    } catch (e) {
+      form.submit();
+      return;
+    }
+
+    form.elements.favorite.value = String(!result.favorite);
+    button.textContent = result.favorite ? '♥ お気に入り解除' : '♡ お気に入り追加';
+    if (count) {
+      count.textContent = `${result.favoriteCount}人がお気に入り`;
+    }
+    button.disabled = false;
+  });
+});
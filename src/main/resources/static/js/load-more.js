@@ -0,0 +1,31 @@
+// 「もっと見る」で次のページを読み込み、一覧の末尾に追加する
+// （JavaScriptが使えない場合はリンクとして次のページへ移る）
+document.addEventListener('click', async event => {
+  const link = event.target.closest('[data-load-more]');
+  if (!link) {
+    return;
+  }
+  event.preventDefault();
+  link.classList.add('disabled');
+
+  const response = await fetch(link.href);
+  if (!response.ok) {
+    location.href = link.href;
+    return;
+  }
+  const nextPage = new DOMParser().parseFromString(await response.text(), 'text/html');
+  const list = document.querySelector(link.dataset.loadMore);
+  const nextItems = nextPage.querySelector(link.dataset.loadMore);
+  if (list && nextItems) {
+    list.append(...nextItems.children);
+  }
+
+  // 次のページにも「もっと見る」があればそのリンク先に差し替える
+  const nextLink = nextPage.querySelector('[data-load-more]');
+  if (nextLink) {
+    link.href = nextLink.href;
+    link.classList.remove('disabled');
+  } else {
+    link.parentElement.remove();
+  }
+});
@@ -0,0 +1,22 @@
+const nearMeButton = document.getElementById('nearMeButton');
+
+nearMeButton.addEventListener('click', () => {
+  if (!navigator.geolocation) {
+    alert('お使いのブラウザでは現在地を取得できません。');
+    return;
+  }
+  navigator.geolocation.getCurrentPosition(position => {
+    const nearForm = document.getElementById('nearForm');
+    const nearLat = document.getElementById('nearLat');
+    const nearLng = document.getElementById('nearLng');
+    nearLat.value = position.coords.latitude.toFixed(5);
+    nearLng.value = position.coords.longitude.toFixed(5);
+    nearLat.disabled = false;
+    nearLng.disabled = false;
+    // 郵便番号より現在地を優先する
+    nearForm.querySelector('input[name="near"]').disabled = true;
+    nearForm.submit();
+  }, () => {
+    alert('現在地を取得できませんでした。');
+  });
+})
@@ -0,0 +1,55 @@
+// レビュー一覧の無限スクロール（「もっと見る」が画面に近づくか押されたら、続きをJSONで取得して末尾に追加する）
+// （JavaScriptが使えない場合はリンクとして次のページへ移る）
+const feedLink = document.querySelector('[data-review-feed]');
+
+if (feedLink) {
+  let loading = false;
+
+  const loadNext = async () => {
+    if (loading) {
+      return;
+    }
+    loading = true;
+    feedLink.classList.add('disabled');
+
+    const url = new URL(feedLink.dataset.reviewFeed, location.href);
+    url.searchParams.set('cursor', feedLink.dataset.cursor);
+    const response = await fetch(url, { headers: { Accept: 'application/json' } });
+    if (!response.ok) {
+      location.href = feedLink.href;
+      return;
+    }
+    const feed = await response.json();
+    document.querySelector(feedLink.dataset.target).insertAdjacentHTML('beforeend', feed.html);
+
+    // 続きがなければ「もっと見る」を消し、あれば次のカーソルに差し替える
+    if (!feed.nextCursor) {
+      observer?.disconnect();
+      feedLink.parentElement.remove();
+      return;
+    }
+    feedLink.dataset.cursor = feed.nextCursor;
+    const nextUrl = new URL(feedLink.href);
+    nextUrl.searchParams.set('cursor', feed.nextCursor);
+    feedLink.href = nextUrl;
+    feedLink.classList.remove('disabled');
+    loading = false;
+    // 追加後もまだ画面内にあれば続けて読み込むよう、監視をやり直す
+    observer?.unobserve(feedLink);
+    observer?.observe(feedLink);
+  };
+
+  const observer = 'IntersectionObserver' in window
+    ? new IntersectionObserver(entries => {
+      if (entries.some(entry => entry.isIntersecting)) {
+        loadNext();
+      }
+    }, { rootMargin: '400px' })
+    : null;
+  observer?.observe(feedLink);
+
+  feedLink.addEventListener('click', event => {
+    event.preventDefault();
+    loadNext();
+  });
+}
@@ -0,0 +1,25 @@
+const keywordInput = document.getElementById('keywordInput');
+const keywordSuggestions = document.getElementById('keywordSuggestions');
+let suggestTimer = null;
+
+keywordInput.addEventListener('input', () => {
+  clearTimeout(suggestTimer);
+  const q = keywordInput.value.trim();
+  if (!q) {
+    keywordSuggestions.innerHTML = '';
+    return;
+  }
+  // 入力が落ち着いてから問い合わせる
+  suggestTimer = setTimeout(() => {
+    fetch(`/restaurants/suggest?q=${encodeURIComponent(q)}`)
+      .then(response => response.json())
+      .then(suggestions => {
+        keywordSuggestions.innerHTML = '';
+        suggestions.forEach(suggestion => {
+          const option = document.createElement('option');
+          option.value = suggestion.text;
+          keywordSuggestions.appendChild(option);
+        });
+      });
+  }, 150);
+})
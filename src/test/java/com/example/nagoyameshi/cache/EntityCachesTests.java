@@ -0,0 +1,79 @@
+package com.example.nagoyameshi.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// 2次キャッシュの有無で、店舗とカテゴリ・定休日の読み込みに発行されるSQLの数を比べる
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class EntityCachesTests {
+
+	@Autowired
+	private RestaurantRepository restaurantRepository;
+
+	@Autowired
+	private EntityCaches entityCaches;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+	}
+
+	@Test
+	void servesRestaurantFromSecondLevelCache() {
+		statistics.clear();
+		loadRestaurant(1);
+		long cold = statistics.getPrepareStatementCount();
+
+		statistics.clear();
+		loadRestaurant(1);
+		long warm = statistics.getPrepareStatementCount();
+
+		// 初回は店舗・カテゴリ・定休日などを読み、2回目はすべてキャッシュから返す
+		assertTrue(cold >= 3, "cold=" + cold);
+		assertEquals(0, warm);
+	}
+
+	@Test
+	void reloadsRestaurantAfterEviction() {
+		loadRestaurant(1);
+		entityCaches.evictRestaurantAfterCommit(1);
+
+		statistics.clear();
+		loadRestaurant(1);
+
+		assertTrue(statistics.getPrepareStatementCount() >= 3);
+	}
+
+	// コントローラーと同じくgetReferenceByIdで取得し、カテゴリ名・定休日名まで読む
+	private void loadRestaurant(Integer id) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Restaurant restaurant = restaurantRepository.getReferenceById(id);
+			restaurant.getName();
+			restaurant.getCategories().forEach(category -> category.getCategory().getName());
+			restaurant.getHolidays().forEach(holiday -> holiday.getWeekday().getName());
+		});
+	}
+}
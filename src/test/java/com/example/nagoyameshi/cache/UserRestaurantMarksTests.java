@@ -0,0 +1,78 @@
+package com.example.nagoyameshi.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.nagoyameshi.repository.FavoriteRepository;
+import com.example.nagoyameshi.repository.ReviewRepository;
+
+// 追加・削除を繰り返した集合の判定を、HashSetで同じ操作をした結果と比べる
+class UserRestaurantMarksTests {
+	private static final Integer USER_ID = 1;
+
+	private UserRestaurantMarks userRestaurantMarks;
+
+	@BeforeEach
+	void setUp() {
+		FavoriteRepository favoriteRepository = mock(FavoriteRepository.class);
+		when(favoriteRepository.findRestaurantIdsByUserId(USER_ID)).thenReturn(List.of(900_000, 3, 42, 3));
+		ReviewRepository reviewRepository = mock(ReviewRepository.class);
+		when(reviewRepository.findRestaurantIdsByUserId(USER_ID)).thenReturn(List.of(7));
+		userRestaurantMarks = new UserRestaurantMarks(favoriteRepository, reviewRepository, 1000);
+	}
+
+	@Test
+	void matchesHashSetAfterRandomChanges() {
+		Set<Integer> favorites = new HashSet<>(List.of(900_000, 3, 42));
+		Set<Integer> reviews = new HashSet<>(List.of(7));
+		userRestaurantMarks.get(USER_ID);
+
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			int restaurantId = random.nextInt(50);
+			boolean add = random.nextBoolean();
+			if (random.nextBoolean()) {
+				if (add) {
+					favorites.add(restaurantId);
+					userRestaurantMarks.favoriteAddedAfterCommit(USER_ID, restaurantId);
+				} else {
+					favorites.remove(restaurantId);
+					userRestaurantMarks.favoriteRemovedAfterCommit(USER_ID, restaurantId);
+				}
+			} else {
+				if (add) {
+					reviews.add(restaurantId);
+					userRestaurantMarks.reviewAddedAfterCommit(USER_ID, restaurantId);
+				} else {
+					reviews.remove(restaurantId);
+					userRestaurantMarks.reviewRemovedAfterCommit(USER_ID, restaurantId);
+				}
+			}
+		}
+
+		UserRestaurantMarks.Marks marks = userRestaurantMarks.get(USER_ID);
+		for (int restaurantId = 0; restaurantId < 60; restaurantId++) {
+			assertEquals(favorites.contains(restaurantId), marks.isFavorite(restaurantId), "favorite " + restaurantId);
+			assertEquals(reviews.contains(restaurantId), marks.isReviewed(restaurantId), "review " + restaurantId);
+		}
+		assertEquals(true, marks.isFavorite(900_000));
+		assertEquals(false, marks.isFavorite(null));
+	}
+
+	// 重みは保持している店舗IDの数（店舗IDの大きさには比例しない）
+	@Test
+	void weighsByNumberOfIds() {
+		userRestaurantMarks.get(USER_ID);
+
+		assertEquals(5L, userRestaurantMarks.stats().get("weight"));
+	}
+}
@@ -0,0 +1,71 @@
+package com.example.nagoyameshi.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Genre;
+import com.example.nagoyameshi.entity.Weekday;
+
+// スナップショットから返すマスタが複製であり、変更しても他の呼び出し元に影響しないことを確かめる
+class TaxonomyTests {
+	private Taxonomy taxonomy;
+
+	@BeforeEach
+	void setUp() {
+		Genre japanese = new Genre();
+		japanese.setId(1);
+		japanese.setName("和食");
+		Category sushi = category(1, "寿司", japanese);
+		Category soba = category(2, "そば", japanese);
+		Weekday monday = new Weekday();
+		monday.setId(1);
+		monday.setName("月曜日");
+
+		taxonomy = new Taxonomy(1, List.of(japanese), List.of(sushi, soba), List.of(monday));
+	}
+
+	@Test
+	void changesToReturnedCategoriesDoNotLeak() {
+		Category category = taxonomy.getCategory(1);
+		category.setName("鮨");
+		category.getGenre().setName("日本料理");
+
+		assertEquals("寿司", taxonomy.getCategory(1).getName());
+		assertEquals("和食", taxonomy.getCategoryByName("寿司").getGenre().getName());
+		assertEquals(List.of("寿司", "そば"), taxonomy.getGenreCategoryMap().get("和食"));
+		assertNotSame(taxonomy.getCategory(1), taxonomy.getCategory(1));
+	}
+
+	@Test
+	void changesToReturnedGenresAndWeekdaysDoNotLeak() {
+		taxonomy.getGenres().get(0).setName("日本料理");
+		taxonomy.getWeekdayByName("月").setName("日曜日");
+
+		assertEquals("和食", taxonomy.getGenre(1).getName());
+		assertEquals("月曜日", taxonomy.getWeekday(1).getName());
+	}
+
+	// 遅延読み込みの代わりに、複製のジャンルには所属カテゴリが設定されている
+	@Test
+	void genreCopiesCarryTheirCategories() {
+		List<String> names = taxonomy.getGenre(1).getCategories().stream()
+				.map(Category::getName)
+				.collect(Collectors.toList());
+
+		assertEquals(List.of("寿司", "そば"), names);
+	}
+
+	private static Category category(Integer id, String name, Genre genre) {
+		Category category = new Category(id, name);
+		category.setGenreId(genre.getId());
+		category.setGenre(genre);
+		return category;
+	}
+}
@@ -0,0 +1,278 @@
+package com.example.nagoyameshi.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Genre;
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.entity.RestaurantStats;
+import com.example.nagoyameshi.entity.Weekday;
+import com.example.nagoyameshi.repository.RestaurantStatsRepository;
+import com.example.nagoyameshi.valueObject.RestaurantCursor;
+
+// 絞り込み・並び替え・ファセットの結果を、全店舗を1件ずつ判定して並べ替えた結果と比べる
+class RestaurantFilterIndexTests {
+	private static final String WEEKDAY_CHARS = "月火水木金土日";
+	private static final List<String> GENRES = List.of("和食", "洋食", "中華");
+	private static final List<String> CATEGORIES = List.of("寿司", "うどん", "パスタ", "ハンバーグ", "ラーメン", "餃子");
+	private static final List<String> ORDERS = List.of("createdAtDesc", "priceAsc", "relevance",
+			RestaurantStatsIndex.REVIEW_COUNT_DESC);
+
+	private final List<RestaurantEntry> entries = new ArrayList<>();
+	private final Map<Integer, Integer> scores = new HashMap<>();
+	private final Map<Integer, Integer> reviewCounts = new HashMap<>();
+	private RestaurantFilterIndex restaurantFilterIndex;
+
+	@BeforeEach
+	void setUp() {
+		Random random = new Random(42);
+		Map<String, Category> categories = new HashMap<>();
+		for (int i = 0; i < CATEGORIES.size(); i++) {
+			Genre genre = new Genre();
+			genre.setId(i / 2 + 1);
+			genre.setName(GENRES.get(i / 2));
+			Category category = new Category(i + 1, CATEGORIES.get(i));
+			category.setGenre(genre);
+			categories.put(category.getName(), category);
+		}
+
+		for (int id = 1; id <= 300; id++) {
+			Restaurant restaurant = new Restaurant();
+			restaurant.setId(id);
+			// 価格・登録日時は重複させ、並び替えキーが同じ場合のIDの並びも確かめる（価格帯の境界の値も含める）
+			restaurant.setPrice(List.of(500, 999, 1000, 1001, 1500, 2000, 2999, 3000, 4200, 8000)
+					.get(random.nextInt(10)));
+			restaurant.setCreatedAt(new Timestamp(1_700_000_000_000L + random.nextInt(20) * 60_000L));
+			if (random.nextInt(5) != 0) {
+				restaurant.setOpeningTime(LocalTime.of(random.nextInt(24), random.nextInt(4) * 15));
+				restaurant.setClosingTime(LocalTime.of(random.nextInt(24), random.nextInt(4) * 15));
+			}
+
+			List<Category> restaurantCategories = new ArrayList<>();
+			for (String name : CATEGORIES) {
+				if (random.nextInt(4) == 0) {
+					restaurantCategories.add(categories.get(name));
+				}
+			}
+			List<Weekday> weekdays = new ArrayList<>();
+			for (int day = 0; day < 7; day++) {
+				if (random.nextInt(6) == 0) {
+					Weekday weekday = new Weekday();
+					weekday.setName(WEEKDAY_CHARS.charAt(day) + "曜日");
+					weekdays.add(weekday);
+				}
+			}
+			entries.add(new RestaurantEntry(restaurant, restaurantCategories, weekdays));
+
+			// 検索語に一致する店舗と関連度（同じ関連度も作る）
+			if (id % 3 == 0) {
+				scores.put(id, id % 7);
+			}
+			// 集計行のない店舗（並び替えキーは0）も混ぜる
+			if (id % 4 != 0) {
+				reviewCounts.put(id, id % 5);
+			}
+		}
+		List<RestaurantStats> stats = new ArrayList<>();
+		for (Map.Entry<Integer, Integer> reviewCount : reviewCounts.entrySet()) {
+			RestaurantStats row = new RestaurantStats();
+			row.setRestaurantId(reviewCount.getKey());
+			row.setReviewCount(reviewCount.getValue());
+			stats.add(row);
+		}
+		RestaurantStatsRepository restaurantStatsRepository = mock(RestaurantStatsRepository.class);
+		when(restaurantStatsRepository.findAll()).thenReturn(stats);
+		RestaurantStatsIndex restaurantStatsIndex = new RestaurantStatsIndex(restaurantStatsRepository,
+				mock(ApplicationEventPublisher.class));
+		restaurantStatsIndex.rebuild();
+
+		RestaurantCatalogLoader restaurantCatalogLoader = mock(RestaurantCatalogLoader.class);
+		when(restaurantCatalogLoader.loadAll()).thenReturn(entries);
+		RestaurantSearchIndex restaurantSearchIndex = mock(RestaurantSearchIndex.class);
+		when(restaurantSearchIndex.isReady()).thenReturn(true);
+		when(restaurantSearchIndex.scores(anyString())).thenReturn(scores);
+		restaurantFilterIndex = new RestaurantFilterIndex(restaurantCatalogLoader, restaurantSearchIndex,
+				restaurantStatsIndex);
+		restaurantFilterIndex.rebuild();
+	}
+
+	@Test
+	void pageMatchesBruteForce() {
+		for (RestaurantQuery query : queries()) {
+			for (String order : ORDERS) {
+				List<RestaurantCursor> expected = bruteForce(query, order);
+				for (long offset : List.of(0L, 7L, (long) expected.size())) {
+					RestaurantFilterResult actual = restaurantFilterIndex.page(query, order, offset, 10);
+
+					assertEquals(expected.size(), actual.getTotal(), describe(query, order));
+					assertEquals(format(expected.subList((int) Math.min(offset, expected.size()),
+							(int) Math.min(offset + 10, expected.size()))), format(actual.getHits()),
+							describe(query, order) + " offset " + offset);
+				}
+			}
+		}
+	}
+
+	// 一覧と同じく1件多く取得し、表示する最後の行をカーソルにして次のページを読む
+	@Test
+	void seekWalksEveryPageOnce() {
+		for (RestaurantQuery query : queries()) {
+			for (String order : ORDERS) {
+				for (int size : List.of(3, 25)) {
+					List<RestaurantCursor> walked = new ArrayList<>();
+					String cursor = null;
+					do {
+						List<RestaurantCursor> hits = restaurantFilterIndex
+								.seek(query, order, RestaurantCursor.decode(cursor), size + 1).getHits();
+						walked.addAll(hits.subList(0, Math.min(size, hits.size())));
+						cursor = hits.size() > size ? hits.get(size - 1).encode() : null;
+					} while (cursor != null);
+
+					assertEquals(format(bruteForce(query, order)), format(walked),
+							describe(query, order) + " size " + size);
+				}
+			}
+		}
+	}
+
+	@Test
+	void facetsMatchBruteForce() {
+		for (RestaurantQuery query : queries()) {
+			RestaurantFacets facets = restaurantFilterIndex.facets(query);
+
+			List<RestaurantEntry> withoutCategories = matching(query.withoutCategories());
+			for (String genre : GENRES) {
+				assertEquals(withoutCategories.stream().filter(entry -> entry.getGenreNames().contains(genre)).count(),
+						facets.genreCount(genre), describe(query, null) + " " + genre);
+			}
+			for (String category : CATEGORIES) {
+				assertEquals(withoutCategories.stream().filter(entry -> entry.getCategoryNames().contains(category))
+						.count(), facets.categoryCount(category), describe(query, null) + " " + category);
+			}
+
+			List<RestaurantEntry> withoutMaxPrice = matching(query.withoutMaxPrice());
+			for (int maxPrice = 0; maxPrice <= 8000; maxPrice += RestaurantFilterIndex.PRICE_BAND_WIDTH) {
+				int limit = maxPrice;
+				assertEquals(withoutMaxPrice.stream().filter(entry -> entry.getPrice() <= limit).count(),
+						facets.priceCount(maxPrice), describe(query, null) + " " + maxPrice);
+			}
+			// 最も高い価格帯を超える上限は全件
+			assertEquals(withoutMaxPrice.size(), facets.priceCount(100_000), describe(query, null));
+		}
+	}
+
+	@Test
+	void cursorRoundTrip() {
+		for (RestaurantCursor cursor : List.of(new RestaurantCursor(0, 0), new RestaurantCursor(1500, 42),
+				new RestaurantCursor(-1, 7), new RestaurantCursor(Long.MAX_VALUE, Integer.MAX_VALUE),
+				new RestaurantCursor(Long.MIN_VALUE, 1))) {
+			RestaurantCursor decoded = RestaurantCursor.decode(cursor.encode());
+
+			assertEquals(cursor.getKey(), decoded.getKey());
+			assertEquals(cursor.getId(), decoded.getId());
+		}
+		// 不正な値は先頭ページとして扱う
+		assertNull(RestaurantCursor.decode(null));
+		assertNull(RestaurantCursor.decode(""));
+		assertNull(RestaurantCursor.decode("!!"));
+		assertNull(RestaurantCursor.decode("MTIz"));
+		assertNull(RestaurantCursor.decode("YWJjOmRlZg"));
+	}
+
+	// 条件なし・各条件の単独・組み合わせ（一致が少ない場合と多い場合の両方の並べ方を通す）
+	private List<RestaurantQuery> queries() {
+		Random random = new Random(7);
+		List<RestaurantQuery> queries = new ArrayList<>(List.of(
+				new RestaurantQuery(null, null, null, null, null, null, null),
+				new RestaurantQuery("寿司", null, null, null, null, null, null),
+				new RestaurantQuery(null, List.of("寿司", "パスタ"), null, null, null, null, null),
+				new RestaurantQuery(null, List.of("存在しない"), null, null, null, null, null),
+				new RestaurantQuery(null, null, "洋食", null, null, null, null),
+				new RestaurantQuery(null, null, null, 1000, null, null, null),
+				new RestaurantQuery(null, null, null, 2500, null, null, null),
+				new RestaurantQuery(null, null, null, 0, null, null, null),
+				new RestaurantQuery(null, null, null, null, "月", null, null),
+				new RestaurantQuery(null, null, null, null, null, 5 * WeeklySchedule.SLOTS_PER_DAY + 80, null)));
+		for (int i = 0; i < 20; i++) {
+			List<String> categories = CATEGORIES.stream().filter(category -> random.nextInt(4) == 0)
+					.collect(Collectors.toList());
+			queries.add(new RestaurantQuery(
+					random.nextBoolean() ? "検索語" : null,
+					categories,
+					random.nextInt(3) == 0 ? GENRES.get(random.nextInt(GENRES.size())) : null,
+					random.nextBoolean() ? random.nextInt(90) * 100 : null,
+					random.nextInt(3) == 0 ? String.valueOf(WEEKDAY_CHARS.charAt(random.nextInt(7))) : null,
+					random.nextInt(3) == 0 ? random.nextInt(WeeklySchedule.SLOTS_PER_WEEK) : null,
+					null));
+		}
+		return queries;
+	}
+
+	private List<RestaurantEntry> matching(RestaurantQuery query) {
+		Predicate<RestaurantEntry> matches = entry -> (!query.hasKeyword() || scores.containsKey(entry.getId()))
+				&& (query.getCategories().isEmpty()
+						|| entry.getCategoryNames().stream().anyMatch(query.getCategories()::contains))
+				&& (query.getGenre() == null || entry.getGenreNames().contains(query.getGenre()))
+				&& (query.getMaxPrice() == null || entry.getPrice() <= query.getMaxPrice())
+				&& (query.getWeekday() == null || !entry.getHolidays().contains(query.getWeekday()))
+				&& (query.getOpenSlot() == null || entry.getSchedule().isOpen(query.getOpenSlot()));
+		return entries.stream().filter(matches).collect(Collectors.toList());
+	}
+
+	// 価格の安い順は(価格, ID)の昇順、それ以外は(キー, ID)の降順
+	private List<RestaurantCursor> bruteForce(RestaurantQuery query, String order) {
+		List<RestaurantCursor> expected = new ArrayList<>();
+		for (RestaurantEntry entry : matching(query)) {
+			long key;
+			if ("priceAsc".equals(order)) {
+				key = entry.getPrice();
+			} else if ("relevance".equals(order) && query.hasKeyword()) {
+				key = scores.get(entry.getId());
+			} else if (RestaurantStatsIndex.REVIEW_COUNT_DESC.equals(order)) {
+				key = reviewCounts.getOrDefault(entry.getId(), 0);
+			} else {
+				key = entry.getCreatedAt();
+			}
+			expected.add(new RestaurantCursor(key, entry.getId()));
+		}
+		Comparator<RestaurantCursor> comparator = Comparator.comparingLong(RestaurantCursor::getKey)
+				.thenComparingInt(RestaurantCursor::getId);
+		expected.sort("priceAsc".equals(order) ? comparator : comparator.reversed());
+
+		// 同じ店舗が2度出てこないこと
+		Set<Integer> ids = new HashSet<>();
+		expected.forEach(cursor -> assertEquals(true, ids.add(cursor.getId())));
+		return expected;
+	}
+
+	private static List<String> format(List<RestaurantCursor> cursors) {
+		return cursors.stream().map(cursor -> cursor.getKey() + ":" + cursor.getId()).collect(Collectors.toList());
+	}
+
+	private static String describe(RestaurantQuery query, String order) {
+		return "keyword=" + query.getKeyword() + " categories=" + query.getCategories() + " genre="
+				+ query.getGenre() + " maxPrice=" + query.getMaxPrice() + " weekday=" + query.getWeekday()
+				+ " openSlot=" + query.getOpenSlot() + " order=" + order;
+	}
+}
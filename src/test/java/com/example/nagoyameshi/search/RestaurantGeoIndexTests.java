@@ -0,0 +1,157 @@
+package com.example.nagoyameshi.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.valueObject.GeoPoint;
+import com.example.nagoyameshi.valueObject.RestaurantCursor;
+
+// 格子を広げて探す近い順の結果を、全店舗の距離を並べ替えた結果と比べる
+class RestaurantGeoIndexTests {
+	private static final IntPredicate ALL = id -> true;
+	private static final IntPredicate EVEN = id -> id % 2 == 0;
+
+	// 名古屋付近・索引の範囲の外側・地球の反対側など
+	private static final List<GeoPoint> ORIGINS = List.of(
+			new GeoPoint(35.17, 136.90),
+			new GeoPoint(35.40, 137.20),
+			new GeoPoint(34.80, 136.50),
+			new GeoPoint(36.50, 138.00),
+			new GeoPoint(0, 0),
+			new GeoPoint(-89, -179),
+			new GeoPoint(89, 179));
+
+	private final Map<Integer, GeoPoint> points = new HashMap<>();
+	private RestaurantGeoIndex restaurantGeoIndex;
+
+	@BeforeEach
+	void setUp() {
+		Random random = new Random(42);
+		List<RestaurantEntry> entries = new ArrayList<>();
+		PostalCodeGazetteer postalCodeGazetteer = mock(PostalCodeGazetteer.class);
+		for (int id = 1; id <= 300; id++) {
+			// 一部の店舗は同じ地点に置き、距離が同じ場合のIDの並びも確かめる
+			GeoPoint point = id % 10 == 0
+					? points.get(id - 1)
+					: new GeoPoint(35.17 + (random.nextDouble() - 0.5) * 0.6,
+							136.90 + (random.nextDouble() - 0.5) * 0.6);
+			points.put(id, point);
+
+			Restaurant restaurant = new Restaurant();
+			restaurant.setId(id);
+			restaurant.setPostalCode(String.valueOf(id));
+			restaurant.setAddress("");
+			entries.add(new RestaurantEntry(restaurant, List.of(), List.of()));
+		}
+		when(postalCodeGazetteer.locate(any(String.class), any(String.class)))
+				.thenAnswer(invocation -> points.get(Integer.valueOf(invocation.getArgument(0, String.class))));
+
+		RestaurantCatalogLoader restaurantCatalogLoader = mock(RestaurantCatalogLoader.class);
+		when(restaurantCatalogLoader.loadAll()).thenReturn(entries);
+
+		restaurantGeoIndex = new RestaurantGeoIndex(restaurantCatalogLoader, postalCodeGazetteer);
+		restaurantGeoIndex.rebuild();
+	}
+
+	@Test
+	void nearestMatchesBruteForce() {
+		for (GeoPoint origin : ORIGINS) {
+			for (IntPredicate filter : List.of(ALL, EVEN)) {
+				List<RestaurantCursor> expected = bruteForce(origin, filter);
+				List<RestaurantCursor> actual = restaurantGeoIndex.nearest(origin, filter, null, 0, 25);
+
+				assertEquals(ids(expected.subList(0, 25)), ids(actual), "origin " + describe(origin));
+			}
+		}
+	}
+
+	@Test
+	void offsetPagesMatchBruteForce() {
+		for (GeoPoint origin : ORIGINS) {
+			List<RestaurantCursor> expected = bruteForce(origin, EVEN);
+			List<Integer> actual = new ArrayList<>();
+			for (int offset = 0; offset < expected.size(); offset += 20) {
+				actual.addAll(ids(restaurantGeoIndex.nearest(origin, EVEN, null, offset, 20)));
+			}
+
+			assertEquals(ids(expected), actual, "origin " + describe(origin));
+		}
+	}
+
+	@Test
+	void cursorPagesMatchBruteForce() {
+		for (GeoPoint origin : ORIGINS) {
+			List<RestaurantCursor> expected = bruteForce(origin, ALL);
+			List<Integer> actual = new ArrayList<>();
+			RestaurantCursor after = null;
+			while (true) {
+				List<RestaurantCursor> hits = restaurantGeoIndex.nearest(origin, ALL, after, 0, 20);
+				if (hits.isEmpty()) {
+					break;
+				}
+				actual.addAll(ids(hits));
+				after = hits.get(hits.size() - 1);
+			}
+
+			assertEquals(ids(expected), actual, "origin " + describe(origin));
+		}
+	}
+
+	// 索引から遠い起点でも格子を1周ずつ広げ続けず、すぐに返す
+	@Test
+	void farOriginReturnsQuickly() {
+		assertTimeout(Duration.ofSeconds(1),
+				() -> restaurantGeoIndex.nearest(new GeoPoint(-89, -179), ALL, null, 0, 10));
+	}
+
+	@Test
+	void returnsEveryFilteredRestaurant() {
+		assertEquals(150, restaurantGeoIndex.nearest(ORIGINS.get(0), EVEN, null, 0, 1000).size());
+	}
+
+	// 削除はスナップショットの差し替えで次の検索から反映される
+	@Test
+	void dropsDeletedRestaurant() {
+		GeoPoint origin = ORIGINS.get(0);
+		Integer closest = restaurantGeoIndex.nearest(origin, ALL, null, 0, 1).get(0).getId();
+
+		restaurantGeoIndex.onRestaurantChange(new RestaurantChangeEvent(this, closest, null));
+
+		List<RestaurantCursor> expected = bruteForce(origin, id -> !closest.equals(id));
+		assertEquals(ids(expected.subList(0, 10)), ids(restaurantGeoIndex.nearest(origin, ALL, null, 0, 10)));
+	}
+
+	private List<RestaurantCursor> bruteForce(GeoPoint origin, IntPredicate filter) {
+		return points.entrySet().stream()
+				.filter(point -> filter.test(point.getKey()))
+				.map(point -> new RestaurantCursor(Math.round(origin.distanceTo(point.getValue())), point.getKey()))
+				.sorted(Comparator.comparingLong(RestaurantCursor::getKey).thenComparingInt(RestaurantCursor::getId))
+				.collect(Collectors.toList());
+	}
+
+	private static List<Integer> ids(List<RestaurantCursor> cursors) {
+		return cursors.stream().map(RestaurantCursor::getId).collect(Collectors.toList());
+	}
+
+	private static String describe(GeoPoint origin) {
+		return origin.getLatitude() + "," + origin.getLongitude();
+	}
+}
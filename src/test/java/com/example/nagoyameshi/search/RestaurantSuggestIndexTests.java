@@ -0,0 +1,109 @@
+package com.example.nagoyameshi.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.nagoyameshi.cache.CatalogVersion;
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Genre;
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.entity.RestaurantStats;
+import com.example.nagoyameshi.event.RestaurantStatsChangeEvent;
+import com.example.nagoyameshi.repository.FavoriteRepository;
+import com.example.nagoyameshi.repository.ReviewRepository;
+import com.example.nagoyameshi.service.GenreService;
+
+// カテゴリ名の変更と、1店舗の集計の変更が入力補完の候補に反映されることを確かめる
+class RestaurantSuggestIndexTests {
+	private final Map<String, List<String>> genreCategoryMap = new HashMap<>();
+	private final Map<Integer, RestaurantStats> stats = new HashMap<>();
+	private final CatalogVersion catalogVersion = new CatalogVersion();
+	private RestaurantSuggestIndex restaurantSuggestIndex;
+
+	@BeforeEach
+	void setUp() {
+		Genre genre = new Genre();
+		genre.setId(1);
+		genre.setName("和食");
+		Category sushi = new Category(1, "寿司");
+		sushi.setGenre(genre);
+		genreCategoryMap.put("和食", List.of("寿司"));
+
+		RestaurantCatalogLoader restaurantCatalogLoader = mock(RestaurantCatalogLoader.class);
+		when(restaurantCatalogLoader.loadAll()).thenReturn(List.of(
+				new RestaurantEntry(restaurant(1, "寿司処 まる"), List.of(sushi), List.of()),
+				new RestaurantEntry(restaurant(2, "寿司屋 かど"), List.of(sushi), List.of())));
+		GenreService genreService = mock(GenreService.class);
+		when(genreService.getGenreCategoryMap()).thenAnswer(invocation -> Map.copyOf(genreCategoryMap));
+		ReviewRepository reviewRepository = mock(ReviewRepository.class);
+		when(reviewRepository.countGroupByRestaurant()).thenReturn(List.of());
+		FavoriteRepository favoriteRepository = mock(FavoriteRepository.class);
+		when(favoriteRepository.countGroupByRestaurant()).thenReturn(List.of());
+		RestaurantStatsIndex restaurantStatsIndex = mock(RestaurantStatsIndex.class);
+		when(restaurantStatsIndex.get(any()))
+				.thenAnswer(invocation -> stats.get(invocation.getArgument(0, Integer.class)));
+
+		restaurantSuggestIndex = new RestaurantSuggestIndex(restaurantCatalogLoader, genreService,
+				reviewRepository, favoriteRepository, catalogVersion, restaurantStatsIndex);
+		restaurantSuggestIndex.rebuild();
+	}
+
+	// 店舗数のある（人気度が0でない）カテゴリでも、名前が変われば古い名前は候補から外れる
+	@Test
+	void dropsRenamedCategoryWhateverItsPopularity() {
+		assertEquals(2, popularityOf(restaurantSuggestIndex.suggest("寿司", 10), "category"));
+
+		genreCategoryMap.put("和食", List.of("鮨"));
+		catalogVersion.bump();
+
+		assertEquals(List.of("restaurant", "restaurant"), types(restaurantSuggestIndex.suggest("寿司", 10)));
+		assertEquals(List.of("category"), types(restaurantSuggestIndex.suggest("鮨", 10)));
+	}
+
+	@Test
+	void updatesPopularityOfChangedRestaurantOnly() {
+		RestaurantStats row = new RestaurantStats();
+		row.setRestaurantId(2);
+		row.setReviewCount(5);
+		row.setFavoriteCount(1);
+		stats.put(2, row);
+
+		restaurantSuggestIndex.onStatsChange(new RestaurantStatsChangeEvent(this, 2));
+
+		List<Suggestion> suggestions = restaurantSuggestIndex.suggest("寿司", 10);
+		assertEquals("寿司屋 かど", suggestions.get(0).getText());
+		assertEquals(6, suggestions.get(0).getPopularity());
+		assertTrue(suggestions.stream()
+				.anyMatch(suggestion -> "寿司処 まる".equals(suggestion.getText()) && suggestion.getPopularity() == 0));
+	}
+
+	private static Restaurant restaurant(Integer id, String name) {
+		Restaurant restaurant = new Restaurant();
+		restaurant.setId(id);
+		restaurant.setName(name);
+		return restaurant;
+	}
+
+	private static long popularityOf(List<Suggestion> suggestions, String type) {
+		return suggestions.stream()
+				.filter(suggestion -> type.equals(suggestion.getType()))
+				.findFirst()
+				.orElseThrow()
+				.getPopularity();
+	}
+
+	private static List<String> types(List<Suggestion> suggestions) {
+		return suggestions.stream().map(Suggestion::getType).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,188 @@
+package com.example.nagoyameshi.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.entity.Weekday;
+
+// 営業時間のビットマップを、分単位で営業中かどうかを判定した結果と比べる
+class WeeklyScheduleTests {
+	private static final String WEEKDAY_CHARS = "月火水木金土日";
+
+	// 日をまたぐ営業・15分刻みでない時刻・開店と閉店が同じ時刻など
+	private static final List<LocalTime[]> HOURS = List.of(
+			new LocalTime[] { LocalTime.of(11, 0), LocalTime.of(22, 0) },
+			new LocalTime[] { LocalTime.of(18, 0), LocalTime.of(2, 0) },
+			new LocalTime[] { LocalTime.of(10, 7), LocalTime.of(21, 53) },
+			new LocalTime[] { LocalTime.of(23, 50), LocalTime.of(0, 10) },
+			new LocalTime[] { LocalTime.of(17, 1), LocalTime.of(0, 0) },
+			new LocalTime[] { LocalTime.of(0, 0), LocalTime.of(0, 0) },
+			new LocalTime[] { LocalTime.of(12, 0), LocalTime.of(12, 0) });
+
+	@Test
+	void matchesBruteForce() {
+		Random random = new Random(42);
+		List<LocalTime[]> hours = new ArrayList<>(HOURS);
+		for (int i = 0; i < 300; i++) {
+			hours.add(new LocalTime[] { LocalTime.of(random.nextInt(24), random.nextInt(60)),
+					LocalTime.of(random.nextInt(24), random.nextInt(60)) });
+		}
+
+		for (LocalTime[] hour : hours) {
+			List<String> holidays = randomHolidays(random);
+			WeeklySchedule schedule = WeeklySchedule.of(hour[0], hour[1], holidays);
+			for (int slot = 0; slot < WeeklySchedule.SLOTS_PER_WEEK; slot++) {
+				assertEquals(bruteForce(slot, hour[0], hour[1], holidays), schedule.isOpen(slot),
+						hour[0] + "-" + hour[1] + " " + holidays + " slot " + slot);
+			}
+			assertEquals(schedule.openSlots().cardinality(), countOpen(hour[0], hour[1], holidays));
+		}
+	}
+
+	@Test
+	void spillsIntoNextDayUnlessPreviousDayIsHoliday() {
+		WeeklySchedule schedule = WeeklySchedule.of(LocalTime.of(18, 0), LocalTime.of(2, 0), List.of("月"));
+
+		// 日曜日の営業が定休日の月曜日の未明まで続く
+		assertTrue(schedule.isOpen(WeeklySchedule.slotOf(DayOfWeek.MONDAY, LocalTime.of(1, 0))));
+		assertFalse(schedule.isOpen(WeeklySchedule.slotOf(DayOfWeek.MONDAY, LocalTime.of(20, 0))));
+		// 月曜日は休みのため火曜日の未明には続かない
+		assertFalse(schedule.isOpen(WeeklySchedule.slotOf(DayOfWeek.TUESDAY, LocalTime.of(1, 0))));
+		assertTrue(schedule.isOpen(WeeklySchedule.slotOf(DayOfWeek.TUESDAY, LocalTime.of(20, 0))));
+		// 日曜日の営業は週をまたいで月曜日の枠に入る
+		assertTrue(schedule.isOpen(WeeklySchedule.slotOf(DayOfWeek.SUNDAY, LocalTime.of(23, 45))));
+		assertFalse(schedule.isOpen(WeeklySchedule.slotOf(DayOfWeek.MONDAY, LocalTime.of(2, 0))));
+	}
+
+	@Test
+	void roundsOpeningAndClosingUpToSlot() {
+		WeeklySchedule schedule = WeeklySchedule.of(LocalTime.of(10, 7), LocalTime.of(21, 53), List.of());
+
+		// 10:00からの枠は開店前に始まるため含めず、21:45からの枠は閉店前に始まるため含める
+		assertFalse(schedule.isOpen(WeeklySchedule.slotOf(DayOfWeek.WEDNESDAY, LocalTime.of(10, 0))));
+		assertTrue(schedule.isOpen(WeeklySchedule.slotOf(DayOfWeek.WEDNESDAY, LocalTime.of(10, 15))));
+		assertTrue(schedule.isOpen(WeeklySchedule.slotOf(DayOfWeek.WEDNESDAY, LocalTime.of(21, 45))));
+		assertFalse(schedule.isOpen(WeeklySchedule.slotOf(DayOfWeek.WEDNESDAY, LocalTime.of(22, 0))));
+
+		// 15分刻みの閉店時刻の枠は含めない
+		WeeklySchedule exact = WeeklySchedule.of(LocalTime.of(10, 0), LocalTime.of(22, 0), List.of());
+		assertTrue(exact.isOpen(WeeklySchedule.slotOf(DayOfWeek.WEDNESDAY, LocalTime.of(10, 0))));
+		assertFalse(exact.isOpen(WeeklySchedule.slotOf(DayOfWeek.WEDNESDAY, LocalTime.of(22, 0))));
+	}
+
+	@Test
+	void unknownHoursAreNeverOpen() {
+		assertTrue(WeeklySchedule.of(null, LocalTime.of(22, 0), List.of()).openSlots().isEmpty());
+		assertTrue(WeeklySchedule.of(LocalTime.of(11, 0), null, List.of()).openSlots().isEmpty());
+	}
+
+	@Test
+	void slotOfTruncatesTimeAndRejectsUnknownWeekday() {
+		assertEquals(WeeklySchedule.slotOf(DayOfWeek.FRIDAY, LocalTime.of(10, 0)),
+				WeeklySchedule.slotOf(DayOfWeek.FRIDAY, LocalTime.of(10, 14, 59)));
+		assertEquals(WeeklySchedule.slotOf(DayOfWeek.FRIDAY, LocalTime.of(10, 0)),
+				WeeklySchedule.slotOf("金", LocalTime.of(10, 0)));
+		assertEquals(WeeklySchedule.SLOTS_PER_WEEK - 1, WeeklySchedule.slotOf(DayOfWeek.SUNDAY, LocalTime.MAX));
+		assertNull(WeeklySchedule.slotOf("金曜日", LocalTime.of(10, 0)));
+		assertNull(WeeklySchedule.slotOf("x", LocalTime.of(10, 0)));
+		assertNull(WeeklySchedule.slotOf("金", null));
+	}
+
+	@Test
+	void filterIndexIsOpenMatchesBruteForce() {
+		Random random = new Random(7);
+		List<RestaurantEntry> entries = new ArrayList<>();
+		List<LocalTime[]> hours = new ArrayList<>();
+		List<List<String>> holidays = new ArrayList<>();
+		for (int id = 1; id <= 60; id++) {
+			LocalTime[] hour = id <= HOURS.size()
+					? HOURS.get(id - 1)
+					: new LocalTime[] { LocalTime.of(random.nextInt(24), random.nextInt(60)),
+							LocalTime.of(random.nextInt(24), random.nextInt(60)) };
+			List<String> holiday = randomHolidays(random);
+			hours.add(hour);
+			holidays.add(holiday);
+
+			Restaurant restaurant = new Restaurant();
+			restaurant.setId(id);
+			restaurant.setPrice(1000);
+			restaurant.setOpeningTime(hour[0]);
+			restaurant.setClosingTime(hour[1]);
+			List<Weekday> weekdays = new ArrayList<>();
+			for (String day : holiday) {
+				Weekday weekday = new Weekday();
+				weekday.setName(day + "曜日");
+				weekdays.add(weekday);
+			}
+			entries.add(new RestaurantEntry(restaurant, List.of(), weekdays));
+		}
+		RestaurantCatalogLoader restaurantCatalogLoader = mock(RestaurantCatalogLoader.class);
+		when(restaurantCatalogLoader.loadAll()).thenReturn(entries);
+		RestaurantFilterIndex restaurantFilterIndex = new RestaurantFilterIndex(restaurantCatalogLoader,
+				mock(RestaurantSearchIndex.class), mock(RestaurantStatsIndex.class));
+
+		// 索引の準備前はどの店舗も営業中にしない
+		assertFalse(restaurantFilterIndex.isOpen(1, 0));
+		restaurantFilterIndex.rebuild();
+
+		for (int id = 1; id <= entries.size(); id++) {
+			LocalTime[] hour = hours.get(id - 1);
+			for (int slot = 0; slot < WeeklySchedule.SLOTS_PER_WEEK; slot++) {
+				assertEquals(bruteForce(slot, hour[0], hour[1], holidays.get(id - 1)),
+						restaurantFilterIndex.isOpen(id, slot), "id " + id + " slot " + slot);
+			}
+			// 週の範囲外の枠は週をまたいで数える
+			assertEquals(restaurantFilterIndex.isOpen(id, WeeklySchedule.SLOTS_PER_WEEK - 1),
+					restaurantFilterIndex.isOpen(id, -1));
+		}
+		assertFalse(restaurantFilterIndex.isOpen(entries.size() + 1, 0));
+	}
+
+	// 枠の開始時刻が、その日の開店から閉店まで、または前日から続く深夜営業の間にあれば営業中
+	private static boolean bruteForce(int slot, LocalTime openingTime, LocalTime closingTime, List<String> holidays) {
+		int day = slot / WeeklySchedule.SLOTS_PER_DAY;
+		int minute = slot % WeeklySchedule.SLOTS_PER_DAY * WeeklySchedule.SLOT_MINUTES;
+		int opening = openingTime.getHour() * 60 + openingTime.getMinute();
+		int closing = closingTime.getHour() * 60 + closingTime.getMinute();
+		boolean workday = !holidays.contains(String.valueOf(WEEKDAY_CHARS.charAt(day)));
+		boolean previousWorkday = !holidays.contains(String.valueOf(WEEKDAY_CHARS.charAt((day + 6) % 7)));
+
+		if (closing > opening) {
+			return workday && minute >= opening && minute < closing;
+		}
+		return workday && minute >= opening || previousWorkday && minute < closing;
+	}
+
+	private static int countOpen(LocalTime openingTime, LocalTime closingTime, List<String> holidays) {
+		int count = 0;
+		for (int slot = 0; slot < WeeklySchedule.SLOTS_PER_WEEK; slot++) {
+			if (bruteForce(slot, openingTime, closingTime, holidays)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static List<String> randomHolidays(Random random) {
+		List<String> holidays = new ArrayList<>();
+		for (int day = 0; day < 7; day++) {
+			if (random.nextInt(4) == 0) {
+				holidays.add(String.valueOf(WEEKDAY_CHARS.charAt(day)));
+			}
+		}
+		return holidays;
+	}
+}
@@ -0,0 +1,112 @@
+package com.example.nagoyameshi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.nagoyameshi.cache.CatalogVersion;
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Genre;
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.RestaurantCatalogReloadEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEventPublisher;
+import com.example.nagoyameshi.repository.CategoryRepository;
+import com.example.nagoyameshi.search.RestaurantCatalogLoader;
+import com.example.nagoyameshi.search.RestaurantEntry;
+import com.example.nagoyameshi.search.RestaurantFilterIndex;
+import com.example.nagoyameshi.search.RestaurantQuery;
+import com.example.nagoyameshi.search.RestaurantSearchIndex;
+import com.example.nagoyameshi.search.RestaurantStatsIndex;
+import com.example.nagoyameshi.valueObject.RestaurantCursor;
+
+// カテゴリ名の変更・削除の後、絞り込みエンジンが新しい名前で絞り込めることを確かめる
+// （DBの代わりに、読み込みのたびに今のカテゴリから店舗情報を作り直す）
+class CategoryServiceTests {
+	private final List<Category> restaurantCategories = new ArrayList<>();
+	private RestaurantFilterIndex restaurantFilterIndex;
+	private CategoryService categoryService;
+	private Category sushi;
+
+	@BeforeEach
+	void setUp() {
+		Genre genre = new Genre();
+		genre.setId(1);
+		genre.setName("和食");
+		sushi = new Category(1, "寿司");
+		sushi.setGenre(genre);
+		restaurantCategories.add(sushi);
+
+		Restaurant restaurant = new Restaurant();
+		restaurant.setId(1);
+		restaurant.setPrice(3000);
+
+		RestaurantCatalogLoader restaurantCatalogLoader = mock(RestaurantCatalogLoader.class);
+		when(restaurantCatalogLoader.loadAll())
+				.thenAnswer(invocation -> List.of(new RestaurantEntry(restaurant, restaurantCategories, List.of())));
+		RestaurantSearchIndex restaurantSearchIndex = mock(RestaurantSearchIndex.class);
+		when(restaurantSearchIndex.isReady()).thenReturn(true);
+		restaurantFilterIndex = new RestaurantFilterIndex(restaurantCatalogLoader, restaurantSearchIndex,
+				mock(RestaurantStatsIndex.class));
+		restaurantFilterIndex.rebuild();
+
+		CategoryRepository categoryRepository = mock(CategoryRepository.class);
+		when(categoryRepository.findById(1)).thenReturn(Optional.of(sushi));
+		when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		// 再読み込みのイベントはSpringの代わりに絞り込みエンジンへ直接渡す
+		RestaurantChangeEventPublisher restaurantChangeEventPublisher = new RestaurantChangeEventPublisher(event -> {
+			if (event instanceof RestaurantCatalogReloadEvent) {
+				restaurantFilterIndex.rebuild();
+			}
+		});
+
+		categoryService = new CategoryService();
+		ReflectionTestUtils.setField(categoryService, "categoryRepository", categoryRepository);
+		ReflectionTestUtils.setField(categoryService, "catalogVersion", mock(CatalogVersion.class));
+		ReflectionTestUtils.setField(categoryService, "taxonomyService", mock(TaxonomyService.class));
+		ReflectionTestUtils.setField(categoryService, "restaurantChangeEventPublisher",
+				restaurantChangeEventPublisher);
+	}
+
+	@Test
+	void filtersByNewNameAfterRename() {
+		assertEquals(List.of(1), search("寿司"));
+
+		categoryService.updateCategory(1, "鮨");
+
+		assertEquals(List.of(1), search("鮨"));
+		assertEquals(List.of(), search("寿司"));
+		assertEquals(1, restaurantFilterIndex.facets(query(null)).categoryCount("鮨"));
+		assertEquals(0, restaurantFilterIndex.facets(query(null)).categoryCount("寿司"));
+	}
+
+	@Test
+	void stopsMatchingAfterDelete() {
+		restaurantCategories.clear();
+
+		categoryService.deleteCategory(1);
+
+		assertEquals(List.of(), search("寿司"));
+		assertEquals(1, restaurantFilterIndex.page(query(null), null, 0, 10).getTotal());
+	}
+
+	private List<Integer> search(String category) {
+		return restaurantFilterIndex.page(query(category), null, 0, 10).getHits().stream()
+				.map(RestaurantCursor::getId)
+				.collect(Collectors.toList());
+	}
+
+	private static RestaurantQuery query(String category) {
+		return new RestaurantQuery(null, category != null ? List.of(category) : null, null, null, null, null, null);
+	}
+}
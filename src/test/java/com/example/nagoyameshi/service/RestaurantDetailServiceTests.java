@@ -0,0 +1,67 @@
+package com.example.nagoyameshi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.nagoyameshi.dto.RestaurantDetail;
+import com.example.nagoyameshi.entity.User;
+import com.example.nagoyameshi.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// 店舗詳細の読み込みで発行されるSQLの数を確かめる（data.sqlの店舗1にはレビューがある）
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RestaurantDetailServiceTests {
+
+	@Autowired
+	private RestaurantDetailService restaurantDetailService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void loadsDetailInTwoStatementsWithoutUser() {
+		statistics.clear();
+
+		RestaurantDetail detail = restaurantDetailService.load(1, null);
+
+		assertNotNull(detail);
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void loadsDetailInTwoStatementsWithUser() {
+		User user = userRepository.findAll().get(0);
+		statistics.clear();
+
+		RestaurantDetail detail = restaurantDetailService.load(1, user);
+
+		assertNotNull(detail);
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void returnsNullForUnknownRestaurantInOneStatement() {
+		statistics.clear();
+
+		assertEquals(null, restaurantDetailService.load(Integer.MAX_VALUE, null));
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.nagoyameshi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.entity.Review;
+import com.example.nagoyameshi.entity.User;
+import com.example.nagoyameshi.form.ReviewEditForm;
+import com.example.nagoyameshi.form.ReviewRegisterForm;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+import com.example.nagoyameshi.repository.RestaurantStatsRepository;
+import com.example.nagoyameshi.repository.ReviewRepository;
+import com.example.nagoyameshi.repository.UserRepository;
+
+// レビューの登録・点数の変更・削除の後、差分で更新した集計値が数え直した値と一致することを確かめる
+// （最初にずれを直してから始め、テストごとにロールバックするため、DBの集計値は変わらない）
+@SpringBootTest
+@Transactional
+class RestaurantStatsServiceTests {
+	@Autowired
+	private RestaurantStatsService restaurantStatsService;
+
+	@Autowired
+	private ReviewService reviewService;
+
+	@Autowired
+	private ReviewRepository reviewRepository;
+
+	@Autowired
+	private RestaurantRepository restaurantRepository;
+
+	@Autowired
+	private RestaurantStatsRepository restaurantStatsRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private Restaurant restaurant;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		restaurant = restaurantRepository.findById(1).orElseThrow();
+		user = userRepository.findAll().get(0);
+		// テストのトランザクションの中で直すため、コミットされない
+		restaurantStatsService.checkDrift(true);
+	}
+
+	@Test
+	void reviewChangesLeaveNoDrift() {
+		Review five = create(5, "集計テスト5");
+		Review three = create(3, "集計テスト3");
+		Review one = create(1, "集計テスト1");
+		assertNoDrift();
+
+		// 点数の変更（分布の移し替え）と、点数を変えない編集
+		reviewService.update(new ReviewEditForm(five.getId(), 2, "集計テスト2"));
+		reviewService.update(new ReviewEditForm(three.getId(), 3, "集計テスト3（編集）"));
+		reviewRepository.flush();
+		assertNoDrift();
+
+		// 変更後の点数での削除
+		reviewService.delete(one.getId());
+		reviewService.delete(five.getId());
+		reviewRepository.flush();
+		assertNoDrift();
+	}
+
+	@Test
+	void reportsCorruptedHistogram() {
+		create(4, "集計テスト4");
+
+		// 件数と合計は合ったまま、分布だけを4点から3点にずらす
+		restaurantStatsRepository.addReviewDelta(1, 0, 0, 0, 0, 1, -1, 0);
+
+		List<String> drifts = restaurantStatsService.checkDrift(false).getDrifts();
+		assertEquals(1, drifts.size());
+		assertTrue(drifts.get(0).startsWith("店舗ID 1: "));
+		assertTrue(drifts.get(0).contains("score3_count"));
+		assertTrue(drifts.get(0).contains("score4_count"));
+	}
+
+	private Review create(int score, String content) {
+		ReviewRegisterForm form = new ReviewRegisterForm();
+		form.setScore(score);
+		form.setContent(content);
+		reviewService.create(restaurant, user, form);
+		reviewRepository.flush();
+
+		return reviewRepository.findAll().stream()
+				.filter(review -> content.equals(review.getContent()))
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private void assertNoDrift() {
+		assertEquals(List.of(), restaurantStatsService.checkDrift(false).getDrifts());
+	}
+}